@@ -1,12 +1,13 @@
 package com.kamron.pogoiv;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.os.Handler;
 import android.widget.CheckBox;
 import android.widget.LinearLayout;
 import android.widget.RadioGroup;
 
+import com.kamron.pogoiv.ocr.ImageSource;
+
 /**
  * Created by Johan on 2016-12-01.
  * A class to handle automatic scanning of appraisal information.
@@ -331,7 +332,7 @@ public class AutoAppraisal {
     private class ScreenScan implements Runnable {
         @Override
         public void run() {
-            Bitmap screen = screenGrabber.grabScreen();
+            ImageSource screen = screenGrabber.grabScreenImage();
             String appraiseText = ocr.getAppraisalText(screen);
             String hash = appraiseText.substring(0, appraiseText.indexOf("#"));
             String text = appraiseText.substring(appraiseText.indexOf("#") + 1);
@@ -0,0 +1,379 @@
+package com.kamron.pogoiv;
+
+import android.app.NotificationManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v7.app.NotificationCompat;
+
+import com.googlecode.tesseract.android.TessBaseAPI;
+import com.kamron.pogoiv.logic.BatchScanRow;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.PokemonNameCorrector;
+import com.kamron.pogoiv.logic.ScanResult;
+import com.kamron.pogoiv.ocr.ImageSource;
+import com.kamron.pogoiv.ocr.RecognizedText;
+import com.kamron.pogoiv.ocr.RecognizerProfile;
+import com.kamron.pogoiv.ocr.ScreenScanner;
+import com.kamron.pogoiv.ocr.TextRecognizer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import timber.log.Timber;
+
+/**
+ * Scans many screenshots at once, to check a whole pokemon storage without tapping every pokemon.
+ * <p/>
+ * The screenshots are split between a few worker threads, each with its own tesseract instances and a single bitmap
+ * it decodes every screenshot into, so memory use doesn't grow with the number of screenshots. The number of workers
+ * is bounded by how many tesseract instances a batch may hold, so it doesn't grow with the number of cores either.
+ * Progress is shown in a notification, and the results are written as CSV while scanning, and as JSON once all
+ * screenshots are done.
+ */
+public class BatchScanner {
+
+    private static final int NOTIFICATION_ID = 8960;
+    private static final int MAX_WORKERS = 3;
+
+    /**
+     * The most tesseract instances the workers of a batch hold together, on top of those of the service.
+     */
+    private static final int MAX_ENGINES = 8;
+
+    /**
+     * The tesseract instances a worker holds: one per profile of the pokemon screen, the appraisal isn't scanned.
+     */
+    private static final int ENGINES_PER_WORKER = RecognizerProfile.values().length - 1;
+
+    private final Context context;
+    private final TesseractPool tesseractPool;
+    private final int widthPixels;
+    private final int heightPixels;
+    private final int trainerLevel;
+    private final boolean isPokeSpamEnabled;
+    private final PokeInfoCalculator pokeInfoCalculator;
+    private final PokemonNameCorrector corrector;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final AtomicInteger nextScreenshot = new AtomicInteger();
+    private final AtomicInteger scannedScreenshots = new AtomicInteger();
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    private final List<BatchScanRow> rows = new ArrayList<>();
+
+    private List<Uri> screenshots;
+    private File csvFile;
+    private File jsonFile;
+    private Writer csvWriter;
+
+    public BatchScanner(Context context, TesseractPool tesseractPool, int widthPixels, int heightPixels,
+                        int trainerLevel, boolean isPokeSpamEnabled, PokeInfoCalculator pokeInfoCalculator,
+                        PokemonNameCorrector corrector) {
+        this.context = context.getApplicationContext();
+        this.tesseractPool = tesseractPool;
+        this.widthPixels = widthPixels;
+        this.heightPixels = heightPixels;
+        this.trainerLevel = trainerLevel;
+        this.isPokeSpamEnabled = isPokeSpamEnabled;
+        this.pokeInfoCalculator = pokeInfoCalculator;
+        this.corrector = corrector;
+    }
+
+    /**
+     * Copy screenshots shared with the app into its cache. A shared screenshot can only be read while the activity it
+     * was shared with runs, and the workers read it long after that activity finished. Call this from a background
+     * thread of that activity.
+     *
+     * @param context     The activity the screenshots were shared with.
+     * @param screenshots The shared screenshots.
+     * @return The copies, in the same order; screenshots which could not be read are left out.
+     */
+    public static ArrayList<Uri> copyToCache(Context context, List<Uri> screenshots) {
+        File folder = new File(context.getCacheDir(), "batch-" + System.currentTimeMillis());
+        ArrayList<Uri> copies = new ArrayList<>();
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            Timber.e("Could not create %s", folder);
+            return copies;
+        }
+        byte[] buffer = new byte[64 * 1024];
+        for (int i = 0; i < screenshots.size(); i++) {
+            Uri screenshot = screenshots.get(i);
+            String name = screenshot.getLastPathSegment();
+            String fileName = name == null ? "screenshot" : name.replaceAll("[^\\w.-]", "_");
+            File copy = new File(folder, i + "-" + fileName);
+            try {
+                InputStream in = context.getContentResolver().openInputStream(screenshot);
+                if (in == null) {
+                    throw new IOException("Could not open " + screenshot);
+                }
+                try {
+                    OutputStream out = new FileOutputStream(copy);
+                    try {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, read);
+                        }
+                    } finally {
+                        out.close();
+                    }
+                } finally {
+                    in.close();
+                }
+                copies.add(Uri.fromFile(copy));
+            } catch (IOException | SecurityException e) {
+                Timber.e(e, "Could not copy %s", screenshot);
+                if (copy.exists() && !copy.delete()) {
+                    Timber.e("Could not delete %s", copy);
+                }
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Delete the copies made by copyToCache, once they were scanned or won't be. Screenshots which aren't such copies
+     * are left alone.
+     *
+     * @param context     Any context of the app.
+     * @param screenshots The screenshots to delete the copies of.
+     */
+    public static void deleteCopies(Context context, List<Uri> screenshots) {
+        File cacheDir = context.getCacheDir();
+        File folder = null;
+        for (Uri screenshot : screenshots) {
+            if (!"file".equals(screenshot.getScheme()) || screenshot.getPath() == null) {
+                continue;
+            }
+            File copy = new File(screenshot.getPath());
+            File parent = copy.getParentFile();
+            if (parent == null || !parent.getName().startsWith("batch-") || !cacheDir.equals(parent.getParentFile())) {
+                continue;
+            }
+            folder = parent;
+            if (!copy.delete()) {
+                Timber.e("Could not delete %s", copy);
+            }
+        }
+        // Only deletes the folder once it's empty.
+        if (folder != null && !folder.delete()) {
+            Timber.e("Could not delete %s", folder);
+        }
+    }
+
+    /**
+     * Start scanning screenshots in the background. A scanner can only be started once.
+     *
+     * @param screenshots The screenshots to scan.
+     * @throws IOException If the report files could not be created.
+     */
+    public void start(List<Uri> screenshots) throws IOException {
+        this.screenshots = new ArrayList<>(screenshots);
+        File folder = context.getExternalFilesDir("batch");
+        if (folder == null) {
+            folder = new File(context.getFilesDir(), "batch");
+        }
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create " + folder);
+        }
+        String name = "goiv-batch-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        csvFile = new File(folder, name + ".csv");
+        jsonFile = new File(folder, name + ".json");
+        csvWriter = new OutputStreamWriter(new FileOutputStream(csvFile), "UTF-8");
+        csvWriter.write(BatchScanRow.CSV_HEADER + "\n");
+
+        showProgress();
+        int workers = Math.min(Runtime.getRuntime().availableProcessors() - 1, MAX_WORKERS);
+        workers = Math.max(1, Math.min(Math.min(workers, MAX_ENGINES / ENGINES_PER_WORKER), screenshots.size()));
+        runningWorkers.set(workers);
+        for (int i = 0; i < workers; i++) {
+            new Thread(new Worker(), "GoIV batch scan " + i).start();
+        }
+    }
+
+    /**
+     * Stop scanning; the screenshots being scanned are finished and the report is written with what was scanned.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isFinished() {
+        return runningWorkers.get() == 0;
+    }
+
+    private void addRow(BatchScanRow row) {
+        synchronized (rows) {
+            rows.add(row);
+            try {
+                csvWriter.write(row.toCsv() + "\n");
+                csvWriter.flush();
+            } catch (IOException e) {
+                Timber.e(e);
+            }
+        }
+        scannedScreenshots.incrementAndGet();
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                showProgress();
+            }
+        });
+    }
+
+    private void finish() {
+        synchronized (rows) {
+            Collections.sort(rows, new Comparator<BatchScanRow>() {
+                @Override
+                public int compare(BatchScanRow lhs, BatchScanRow rhs) {
+                    return lhs.index - rhs.index;
+                }
+            });
+            try {
+                csvWriter.close();
+                Writer jsonWriter = new OutputStreamWriter(new FileOutputStream(jsonFile), "UTF-8");
+                try {
+                    jsonWriter.write(BatchScanRow.toJson(rows));
+                } finally {
+                    jsonWriter.close();
+                }
+            } catch (IOException e) {
+                Timber.e(e);
+            }
+        }
+        deleteCopies(context, screenshots);
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                showDone();
+            }
+        });
+    }
+
+    private void showProgress() {
+        NotificationCompat.Builder notification = new NotificationCompat.Builder(context);
+        notification.setSmallIcon(R.drawable.notification_icon_play)
+                .setContentTitle(context.getString(R.string.batch_scan_title))
+                .setContentText(context.getString(R.string.batch_scan_progress, scannedScreenshots.get(),
+                        screenshots.size()))
+                .setProgress(screenshots.size(), scannedScreenshots.get(), false)
+                .setOngoing(true);
+        getNotificationManager().notify(NOTIFICATION_ID, notification.build());
+    }
+
+    private void showDone() {
+        String text = context.getString(R.string.batch_scan_done, scannedScreenshots.get(), csvFile.getParent());
+        NotificationCompat.Builder notification = new NotificationCompat.Builder(context);
+        notification.setSmallIcon(R.drawable.notification_icon)
+                .setContentTitle(context.getString(R.string.batch_scan_title))
+                .setContentText(text)
+                .setStyle(new NotificationCompat.BigTextStyle().bigText(text));
+        getNotificationManager().notify(NOTIFICATION_ID, notification.build());
+    }
+
+    private NotificationManager getNotificationManager() {
+        return (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    /**
+     * Scans screenshots until none are left, with its own tesseract instances and decoding bitmap.
+     */
+    private class Worker implements Runnable {
+        private final EnumMap<RecognizerProfile, TessBaseAPI> tesseracts = new EnumMap<>(RecognizerProfile.class);
+        private Bitmap decodeBitmap;
+        private int scannedHeight;
+
+        @Override
+        public void run() {
+            try {
+                ScreenScanner scanner = new ScreenScanner(new TextRecognizer() {
+                    @Override
+                    public String recognize(ImageSource image, RecognizerProfile profile) {
+                        return OcrHelper.getText(getTesseract(profile), image);
+                    }
+
+                    @Override
+                    public RecognizedText recognizeChoices(ImageSource image, RecognizerProfile profile) {
+                        return OcrHelper.getTextChoices(getTesseract(profile), image);
+                    }
+                }, widthPixels, heightPixels, pokeInfoCalculator, isPokeSpamEnabled);
+                scannedHeight = scanner.getScannedHeight();
+                int index;
+                while (!cancelled.get() && (index = nextScreenshot.getAndIncrement()) < screenshots.size()) {
+                    addRow(scan(scanner, index));
+                }
+            } finally {
+                for (Map.Entry<RecognizerProfile, TessBaseAPI> entry : tesseracts.entrySet()) {
+                    tesseractPool.release(entry.getKey(), entry.getValue());
+                }
+                if (decodeBitmap != null) {
+                    decodeBitmap.recycle();
+                }
+                if (runningWorkers.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        private TessBaseAPI getTesseract(RecognizerProfile profile) {
+            TessBaseAPI tesseract = tesseracts.get(profile);
+            if (tesseract == null) {
+                tesseract = tesseractPool.acquire(profile);
+                tesseracts.put(profile, tesseract);
+            }
+            return tesseract;
+        }
+
+        private BatchScanRow scan(ScreenScanner scanner, int index) {
+            Uri screenshot = screenshots.get(index);
+            String name = screenshot.getLastPathSegment();
+            try {
+                Bitmap bitmap = decode(screenshot);
+                try {
+                    ScanResult scan = scanner.scanPokemon(new BitmapImageSource(bitmap), trainerLevel);
+                    return BatchScanRow.create(index, name, scan, corrector, pokeInfoCalculator);
+                } finally {
+                    if (bitmap != decodeBitmap) {
+                        bitmap.recycle();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                Timber.e(e, "Batch scan of %s failed", screenshot);
+                return BatchScanRow.failed(index, name, String.valueOf(e.getMessage()));
+            }
+        }
+
+        /**
+         * Decode the rows of a screenshot the scanner reads at the width of the screen, reusing the bitmap of the
+         * previous screenshot if it fits.
+         */
+        private Bitmap decode(Uri screenshot) throws IOException {
+            Bitmap bitmap = ScreenshotDecoder.decodeRegion(context.getContentResolver(), screenshot, widthPixels,
+                    heightPixels, scannedHeight, decodeBitmap);
+            if (bitmap != decodeBitmap && decodeBitmap != null) {
+                decodeBitmap.recycle();
+            }
+            decodeBitmap = bitmap;
+
+            // Screenshots from another phone are scaled to our width, as when a single screenshot is shared.
+            return ScreenshotDecoder.scaleToWidth(bitmap, widthPixels);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.kamron.pogoiv;
+
+import android.graphics.Bitmap;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+
+/**
+ * Hands bitmaps over between components of the app by a small id, so that full screen bitmaps aren't parcelled into
+ * intents. The bitmap stays in memory as is; whoever takes it becomes its owner and must recycle it.
+ */
+final class BitmapHandles {
+
+    /**
+     * Handles which nobody took are dropped once there are more than this, so a lost handle can't pile up bitmaps.
+     */
+    private static final int MAX_HANDLES = 4;
+
+    private static final SparseArray<Bitmap> bitmaps = new SparseArray<>();
+    private static int nextId = 1;
+
+    private BitmapHandles() {
+    }
+
+    /**
+     * Store a bitmap until it's taken.
+     *
+     * @param bitmap The bitmap to hand over; the caller must not use or recycle it anymore.
+     * @return The handle to pass to take().
+     */
+    static synchronized int put(Bitmap bitmap) {
+        while (bitmaps.size() >= MAX_HANDLES) {
+            bitmaps.valueAt(0).recycle();
+            bitmaps.removeAt(0);
+        }
+        int id = nextId++;
+        bitmaps.put(id, bitmap);
+        return id;
+    }
+
+    /**
+     * Take the bitmap of a handle; a handle can only be taken once.
+     *
+     * @param id The handle returned by put().
+     * @return The bitmap, or null if the handle was already taken or dropped.
+     */
+    static synchronized @Nullable Bitmap take(int id) {
+        Bitmap bitmap = bitmaps.get(id);
+        bitmaps.remove(id);
+        return bitmap;
+    }
+}
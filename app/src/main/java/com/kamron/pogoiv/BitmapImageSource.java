@@ -0,0 +1,57 @@
+package com.kamron.pogoiv;
+
+import android.graphics.Bitmap;
+
+import com.kamron.pogoiv.ocr.ImageSource;
+
+/**
+ * An ImageSource reading the pixels of an Android Bitmap, or of a rectangle of it without copying it.
+ */
+public class BitmapImageSource implements ImageSource {
+    private final Bitmap bitmap;
+    private final int left;
+    private final int top;
+    private final int width;
+    private final int height;
+
+    public BitmapImageSource(Bitmap bitmap) {
+        this(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight());
+    }
+
+    private BitmapImageSource(Bitmap bitmap, int left, int top, int width, int height) {
+        this.bitmap = bitmap;
+        this.left = left;
+        this.top = top;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        return bitmap.getPixel(left + x, top + y);
+    }
+
+    @Override
+    public void getPixels(int[] pixels, int offset, int stride, int x, int y, int width, int height) {
+        bitmap.getPixels(pixels, offset, stride, left + x, top + y, width, height);
+    }
+
+    @Override
+    public ImageSource getRegion(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Rectangle " + x + "," + y + " " + width + "x" + height
+                    + " is outside of image of " + this.width + "x" + this.height);
+        }
+        return new BitmapImageSource(bitmap, left + x, top + y, width, height);
+    }
+}
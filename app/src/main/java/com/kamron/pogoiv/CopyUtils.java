@@ -3,62 +3,230 @@ package com.kamron.pogoiv;
 import android.content.res.AssetManager;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
 
 import timber.log.Timber;
 
 /**
  * Created by pgiarrusso on 4/9/2016.
+ * Extracts asset folders to files. Once a folder is completely extracted, a marker file records the version of the
+ * app and the length, modification time and checksum of every file, so an extraction is skipped when it is current,
+ * and redone when it was interrupted, came from another version of the app, or a file was truncated or changed since.
+ * <p/>
+ * Every copy is checksummed right after it's written. On later starts only the lengths and modification times are
+ * compared, which doesn't read the files; a file is only read to check its checksum when its modification time
+ * changed. Extracting still copies megabytes, so do it from a background thread.
  */
 public class CopyUtils {
-    static boolean copyAssetFolder(AssetManager assetManager, String fromAssetPath, String toPath) {
 
-        String[] files = new String[0];
+    private static final String MARKER_FILE = ".extracted";
+    private static final String VERSION_KEY = "version";
+    private static final String PART_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 256 * 1024;
 
+    /**
+     * Extract an asset folder, unless the files extracted before are current.
+     *
+     * @param assetManager  The assets to extract from.
+     * @param fromAssetPath The asset folder to extract.
+     * @param toPath        The folder to extract to.
+     * @param version       The version of the assets, usually the app version code.
+     * @return true if the folder is extracted and current.
+     */
+    static boolean extractAssetFolder(AssetManager assetManager, String fromAssetPath, String toPath, int version) {
+        File toDir = new File(toPath);
+        File markerFile = new File(toDir, MARKER_FILE);
+        //Heap rather than direct, because CRC32 can only read arrays before API 26.
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
         try {
-            files = assetManager.list(fromAssetPath);
+            if (isCurrent(markerFile, readMarker(markerFile), toDir, version, buffer)) {
+                return true;
+            }
         } catch (IOException exception) {
-            Timber.e("Exception thrown in copyAssetFolder()");
+            Timber.e(exception); //Extracted again below.
+        }
+
+        if (markerFile.exists() && !markerFile.delete()) {
+            Timber.e("Could not delete %s", markerFile);
+            return false;
+        }
+        Properties marker = new Properties();
+        marker.setProperty(VERSION_KEY, String.valueOf(version));
+        try {
+            extractFolder(assetManager, fromAssetPath, toDir, "", buffer, marker);
+            writeMarker(markerFile, marker);
+            return true;
+        } catch (IOException exception) {
+            Timber.e("Exception thrown in extractAssetFolder()");
             Timber.e(exception);
+            return false;
+        }
+    }
+
+    /**
+     * Check that the marker is from this version, and that every file it lists has the length and modification time
+     * recorded. A file with another modification time, as after a restore from a backup, is current if it has the
+     * checksum recorded, which the marker then remembers its new time for.
+     */
+    private static boolean isCurrent(File markerFile, Properties marker, File toDir, int version, ByteBuffer buffer)
+            throws IOException {
+        if (marker == null || !String.valueOf(version).equals(marker.getProperty(VERSION_KEY))) {
+            return false;
+        }
+        List<String> touched = new ArrayList<>();
+        for (String name : marker.stringPropertyNames()) {
+            if (VERSION_KEY.equals(name)) {
+                continue;
+            }
+            String[] entry = marker.getProperty(name).split(":");
+            File file = new File(toDir, name);
+            try {
+                if (entry.length != 3 || file.length() != Long.parseLong(entry[0])) {
+                    return false;
+                }
+                if (file.lastModified() != Long.parseLong(entry[1])) {
+                    touched.add(name);
+                }
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        if (marker.size() == 1) {
+            return false; //Only the version, no file was extracted.
+        }
+        if (touched.isEmpty()) {
+            return true;
+        }
+
+        for (String name : touched) {
+            File file = new File(toDir, name);
+            long checksum = checksum(file, buffer);
+            if (!Long.toHexString(checksum).equals(marker.getProperty(name).split(":")[2])) {
+                Timber.e("Checksum mismatch of %s", name);
+                return false;
+            }
+            marker.setProperty(name, toEntry(file.length(), file.lastModified(), checksum));
+        }
+        writeMarker(markerFile, marker);
+        return true;
+    }
+
+    private static void extractFolder(AssetManager assetManager, String fromAssetPath, File toDir, String prefix,
+                                      ByteBuffer buffer, Properties marker) throws IOException {
+        if (!toDir.isDirectory() && !toDir.mkdirs()) {
+            throw new IOException("Could not create " + toDir);
         }
-        new File(toPath).mkdirs();
-        boolean res = true;
-        for (String file : files) {
+        for (String file : assetManager.list(fromAssetPath)) {
+            String assetPath = fromAssetPath + "/" + file;
             if (file.contains(".")) {
-                res &= copyAsset(assetManager, fromAssetPath + "/" + file, toPath + "/" + file);
+                extractFile(assetManager, assetPath, new File(toDir, file), prefix + file, buffer, marker);
             } else {
-                res &= copyAssetFolder(assetManager, fromAssetPath + "/" + file, toPath + "/" + file);
+                extractFolder(assetManager, assetPath, new File(toDir, file), prefix + file + "/", buffer, marker);
             }
         }
-        return res;
+    }
+
+    /**
+     * Copy an asset to a temporary file, check the copy against the checksum of what was read, then move it in place.
+     * A file is either completely replaced or not at all.
+     */
+    private static void extractFile(AssetManager assetManager, String assetPath, File toFile, String name,
+                                    ByteBuffer buffer, Properties marker) throws IOException {
+        File partFile = new File(toFile.getPath() + PART_SUFFIX);
+        CRC32 checksum = new CRC32();
+        long length = 0;
+        ReadableByteChannel in = Channels.newChannel(assetManager.open(assetPath));
+        FileOutputStream outStream = new FileOutputStream(partFile);
+        try {
+            FileChannel out = outStream.getChannel();
+            buffer.clear();
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                checksum.update(buffer.array(), buffer.arrayOffset(), buffer.limit());
+                length += buffer.limit();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+            out.force(true);
+        } finally {
+            in.close();
+            outStream.close();
+        }
 
+        if (partFile.length() != length || checksum(partFile, buffer) != checksum.getValue()) {
+            partFile.delete();
+            throw new IOException("Corrupt copy of " + assetPath);
+        }
+        if (!partFile.renameTo(toFile)) {
+            partFile.delete();
+            throw new IOException("Could not move " + partFile + " to " + toFile);
+        }
+        marker.setProperty(name, toEntry(length, toFile.lastModified(), checksum.getValue()));
+    }
+
+    private static String toEntry(long length, long lastModified, long checksum) {
+        return length + ":" + lastModified + ":" + Long.toHexString(checksum);
     }
 
-    private static boolean copyAsset(AssetManager assetManager, String fromAssetPath, String toPath) {
+    private static long checksum(File file, ByteBuffer buffer) throws IOException {
+        CRC32 checksum = new CRC32();
+        FileChannel in = new FileInputStream(file).getChannel();
         try {
-            InputStream in = assetManager.open(fromAssetPath);
-            new File(toPath).createNewFile();
-            OutputStream out = new FileOutputStream(toPath);
-            copyFile(in, out);
+            buffer.clear();
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                checksum.update(buffer.array(), buffer.arrayOffset(), buffer.limit());
+                buffer.clear();
+            }
+        } finally {
             in.close();
-            out.flush();
-            out.close();
-            return true;
-        } catch (IOException exception) {
-            Timber.e("Exception thrown in copyAsset()");
+        }
+        return checksum.getValue();
+    }
+
+    private static Properties readMarker(File markerFile) {
+        if (!markerFile.isFile()) {
+            return null;
+        }
+        Properties marker = new Properties();
+        try {
+            InputStream in = new FileInputStream(markerFile);
+            try {
+                marker.load(in);
+            } finally {
+                in.close();
+            }
+            return marker;
+        } catch (IOException | IllegalArgumentException exception) {
             Timber.e(exception);
-            return false;
+            return null;
         }
     }
 
-    private static void copyFile(InputStream in, OutputStream out) throws IOException {
-        byte[] buffer = new byte[1024];
-        int read;
-        while ((read = in.read(buffer)) != -1) {
-            out.write(buffer, 0, read);
+    private static void writeMarker(File markerFile, Properties marker) throws IOException {
+        File partFile = new File(markerFile.getPath() + PART_SUFFIX);
+        OutputStream out = new FileOutputStream(partFile);
+        try {
+            marker.store(out, null);
+        } finally {
+            out.close();
+        }
+        if (!partFile.renameTo(markerFile)) {
+            throw new IOException("Could not move " + partFile + " to " + markerFile);
         }
     }
 }
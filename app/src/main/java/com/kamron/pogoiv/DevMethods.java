@@ -8,7 +8,7 @@ import com.kamron.pogoiv.logic.Pokemon;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.util.ArrayList;
+import java.util.List;
 
 import timber.log.Timber;
 
@@ -64,7 +64,7 @@ public class DevMethods {
 
         int evolutionCost = -99999;
         for (Pokemon poke : pokeCalculator.getPokedex()) {
-            ArrayList<Pokemon> evoLine = pokeCalculator.getEvolutionLine(poke);
+            List<Pokemon> evoLine = pokeCalculator.getEvolutionLine(poke);
             int numberInEvoLine = 1;
             for (int i = 0; i < evoLine.size(); i++) {
                 System.out.println("poke:" + poke.name + " evoLine size: " + evoLine.size());
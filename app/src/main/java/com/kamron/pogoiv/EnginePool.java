@@ -0,0 +1,172 @@
+package com.kamron.pogoiv;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.kamron.pogoiv.ocr.RecognizerProfile;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * The bookkeeping of TesseractPool, apart from tesseract itself: engines set up for one RecognizerProfile each, which
+ * are warmed up in the background, handed out, and kept idle up to a limit per profile once given back.
+ * <p/>
+ * A warm-up which failed is tried again by the next user of the pool. It only creates the engines still missing, and
+ * never keeps more than the limit, so the pool doesn't grow with every retry.
+ *
+ * @param <E> The type of the engines.
+ */
+class EnginePool<E> {
+
+    /**
+     * Creates and handles the engines of a pool.
+     */
+    interface Factory<E> {
+        /**
+         * Prepare what the engines need, called on the warm-up thread before any engine is created.
+         *
+         * @return The path engines load their data from.
+         */
+        String prepare();
+
+        E create(String dataPath, RecognizerProfile profile);
+
+        /**
+         * Make a new engine fast on its first use, like by reading a tiny image.
+         */
+        void warmUp(E engine);
+
+        /**
+         * Forget what an engine read, so it can be given to the next user.
+         */
+        void clear(E engine);
+
+        void end(E engine);
+    }
+
+    private final Factory<E> factory;
+    private final int maxIdle;
+    private final EnumMap<RecognizerProfile, ArrayDeque<E>> idle = new EnumMap<>(RecognizerProfile.class);
+
+    private SettableFuture<String> ready;
+    private boolean warmUpFailed;
+
+    /**
+     * Create a pool, which is warmed up by the first call to getReady.
+     *
+     * @param factory Creates and handles the engines.
+     * @param maxIdle How many engines of a profile are kept for the next user.
+     */
+    EnginePool(Factory<E> factory, int maxIdle) {
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+        for (RecognizerProfile profile : RecognizerProfile.values()) {
+            idle.put(profile, new ArrayDeque<E>());
+        }
+    }
+
+    /**
+     * Get a future which completes with the data path of the engines once it's prepared and an engine of every profile
+     * but the appraisal is warm. The warm-up is started again if it failed before.
+     */
+    synchronized ListenableFuture<String> getReady() {
+        if (ready == null || warmUpFailed) {
+            warmUpFailed = false;
+            ready = SettableFuture.create();
+            warmUp(ready);
+        }
+        return ready;
+    }
+
+    private void warmUp(final SettableFuture<String> ready) {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    String dataPath = factory.prepare();
+                    //The appraisal engine is left for later, it's only needed once a pokemon was scanned.
+                    for (RecognizerProfile profile : RecognizerProfile.values()) {
+                        if (profile != RecognizerProfile.APPRAISAL && getIdleCount(profile) == 0) {
+                            E engine = factory.create(dataPath, profile);
+                            factory.warmUp(engine);
+                            keepOrEnd(profile, engine);
+                        }
+                    }
+                    ready.set(dataPath);
+                } catch (RuntimeException e) {
+                    Timber.e(e);
+                    synchronized (EnginePool.this) {
+                        warmUpFailed = true;
+                    }
+                    ready.setException(e);
+                }
+            }
+        }, "GoIV tesseract warm-up").start();
+    }
+
+    /**
+     * Get an engine for a profile, waiting for the warm-up if needed.
+     *
+     * @param profile The kind of field the engine will read.
+     * @return A warm engine if there is one, a new one otherwise.
+     */
+    E acquire(RecognizerProfile profile) {
+        String dataPath = Futures.getUnchecked(getReady());
+        synchronized (idle) {
+            ArrayDeque<E> profileIdle = idle.get(profile);
+            if (!profileIdle.isEmpty()) {
+                return profileIdle.pop();
+            }
+        }
+        return factory.create(dataPath, profile);
+    }
+
+    /**
+     * Give back an engine from acquire. It's kept for the next user if the pool has room, ended otherwise.
+     *
+     * @param profile The profile the engine was acquired for.
+     * @param engine  The engine, which mustn't be used anymore by the caller.
+     */
+    void release(RecognizerProfile profile, E engine) {
+        factory.clear(engine);
+        keepOrEnd(profile, engine);
+    }
+
+    private void keepOrEnd(RecognizerProfile profile, E engine) {
+        synchronized (idle) {
+            ArrayDeque<E> profileIdle = idle.get(profile);
+            if (profileIdle.size() < maxIdle) {
+                profileIdle.push(engine);
+                return;
+            }
+        }
+        factory.end(engine);
+    }
+
+    /**
+     * End the engines kept for the next user; the next acquire creates a new one.
+     */
+    void endIdle() {
+        List<E> ended = new ArrayList<>();
+        synchronized (idle) {
+            for (ArrayDeque<E> profileIdle : idle.values()) {
+                ended.addAll(profileIdle);
+                profileIdle.clear();
+            }
+        }
+        for (E engine : ended) {
+            factory.end(engine);
+        }
+    }
+
+    int getIdleCount(RecognizerProfile profile) {
+        synchronized (idle) {
+            return idle.get(profile).size();
+        }
+    }
+}
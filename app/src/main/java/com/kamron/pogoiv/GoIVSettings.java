@@ -3,6 +3,7 @@ package com.kamron.pogoiv;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Build;
+import android.os.Environment;
 
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.clipboard.tokens.IVPercentageToken;
@@ -32,6 +33,7 @@ public class GoIVSettings {
     public static final String SEND_CRASH_REPORTS = "sendCrashReports";
     public static final String AUTO_UPDATE_ENABLED = "autoUpdateEnabled";
     public static final String POKESPAM_ENABLED = "pokeSpamEnabled";
+    public static final String SPECULATIVE_SCAN = "speculativeScan";
     public static final String TEAM_NAME = "teamName";
     public static final String APPRAISAL_WINDOW_POSITION = "appraisalWindowPosition";
     public static final String GOIV_CLIPBOARDSETTINGS = "GoIV_ClipboardSettings";
@@ -41,6 +43,8 @@ public class GoIVSettings {
     public static final String COPY_TO_CLIPBOARD_SHOW_TOAST = "copyToClipboardShowToast";
     public static final String AUTO_APPRAISAL_SCAN_DELAY = "autoAppraisalScanDelay";
     public static final String AUTO_OPEN_APPRAISE_DIALOGUE = "autoOpenAppraiseDialogue";
+    public static final String SCAN_TRACING = "scanTracing";
+    public static final String BATCH_SCAN_FOLDER = "batchScanFolder";
 
     private static GoIVSettings instance;
     private final SharedPreferences prefs;
@@ -58,6 +62,20 @@ public class GoIVSettings {
         return instance;
     }
 
+    /**
+     * Get notified when a setting changes. The settings only keep a weak reference to the listener.
+     *
+     * @param listener The listener to notify.
+     */
+    public void registerOnSharedPreferenceChangeListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        prefs.registerOnSharedPreferenceChangeListener(listener);
+    }
+
+    public void unregisterOnSharedPreferenceChangeListener(
+            SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        prefs.unregisterOnSharedPreferenceChangeListener(listener);
+    }
+
     public boolean shouldLaunchPokemonGo() {
         return prefs.getBoolean(LAUNCH_POKEMON_GO, true);
     }
@@ -162,6 +180,10 @@ public class GoIVSettings {
         return prefs.getBoolean(POKESPAM_ENABLED, true);
     }
 
+    public boolean isSpeculativeScanEnabled() {
+        return prefs.getBoolean(SPECULATIVE_SCAN, false);
+    }
+
     public boolean shouldAutoOpenExpandedAppraise() {
         return prefs.getBoolean(AUTO_OPEN_APPRAISE_DIALOGUE, false);
     }
@@ -181,6 +203,16 @@ public class GoIVSettings {
         return prefs.getInt(AUTO_APPRAISAL_SCAN_DELAY, 400);
     }
 
+    public boolean isScanTracingEnabled() {
+        return prefs.getBoolean(SCAN_TRACING, false);
+    }
+
+    public String getBatchScanFolder() {
+        File screenshots = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_PICTURES),
+                "Screenshots");
+        return prefs.getString(BATCH_SCAN_FOLDER, screenshots.getPath());
+    }
+
     public Map<String, String> loadAppraisalCache() {
         Map<String, String> appraisalCache = new HashMap<>();
 
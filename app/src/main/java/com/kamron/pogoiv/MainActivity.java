@@ -10,7 +10,6 @@ import android.content.IntentFilter;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
-import android.graphics.Point;
 import android.graphics.Rect;
 import android.media.projection.MediaProjection;
 import android.media.projection.MediaProjectionManager;
@@ -81,8 +80,6 @@ public class MainActivity extends AppCompatActivity {
     private Button launchButton;
     private NumberPicker npTrainerLevel;
 
-    private final Point arcInit = new Point();
-    private int arcRadius;
     private final BroadcastReceiver pokeflyStateChanged = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -160,6 +157,7 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         Timber.tag(TAG);
         initiateAndLoadSettings(); //Loading settings must be done before methods that use settings
+        TesseractPool.getInstance(this); //Warm up OCR in the background, so the first scan doesn't wait for it
 
         runAutoUpdateStartupChecks();
         initiateUserScreenSettings();
@@ -195,8 +193,7 @@ public class MainActivity extends AppCompatActivity {
      */
     private void initiateUserScreenSettings() {
         displayMetrics = this.getResources().getDisplayMetrics();
-        double screenRatio = (double) displayMetrics.heightPixels / (double) displayMetrics.widthPixels;
-        if (screenRatio > 1.9 && screenRatio < 2.06) {
+        if (Data.isExtraLongScreen(displayMetrics.widthPixels, displayMetrics.heightPixels)) {
             samsungS8Patch = true;
         }
         /*
@@ -296,7 +293,7 @@ public class MainActivity extends AppCompatActivity {
                 setupDisplaySizeInfo();
                 trainerLevel = setupTrainerLevel();
 
-                Data.setupArcPoints(arcInit, arcRadius, trainerLevel);
+                Data.setupArcPoints(displayMetrics.widthPixels, displayMetrics.heightPixels, trainerLevel);
 
                 if (batterySaver) {
                     startPokeFly();
@@ -368,31 +365,8 @@ public class MainActivity extends AppCompatActivity {
 
     private void setupDisplaySizeInfo() {
         if (samsungS8Patch) {
-            int displayHeight = (int) (displayMetrics.widthPixels * 2.0555555);
-            //displayheight is calculated from width because height is dependent on aspect ratio
-            //And s8 and s8+ have different height of navbar, which is not reported bby displaymetrics.
-            arcInit.x = (int) (displayMetrics.widthPixels * 0.5);
-            arcInit.y = (int) (displayHeight * 0.3067567);
-            //magical number measured in photoshop, "middle of circle" ~905
-
-            arcRadius = (int) (displayHeight * 0.19695945);//583;
             Toast.makeText(this, "Extra long screen, compatibility mode active", Toast.LENGTH_SHORT).show();
             Toast.makeText(this, "Make sure the app does not have black bars!", Toast.LENGTH_SHORT).show();
-        } else {
-            arcInit.x = (int) (displayMetrics.widthPixels * 0.5);
-
-            arcInit.y = (int) Math.floor(displayMetrics.heightPixels * 0.35664);
-            if (displayMetrics.heightPixels == 2392 || displayMetrics.heightPixels == 800) {
-                arcInit.y--;
-            } else if (displayMetrics.heightPixels == 1920) {
-                arcInit.y++;
-            }
-
-            arcRadius = (int) Math.round(displayMetrics.heightPixels * 0.2285);
-            if (displayMetrics.heightPixels == 1776 || displayMetrics.heightPixels == 960
-                    || displayMetrics.heightPixels == 800) {
-                arcRadius++;
-            }
         }
     }
 
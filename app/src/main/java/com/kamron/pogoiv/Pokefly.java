@@ -14,14 +14,15 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Color;
-import android.graphics.Matrix;
 import android.graphics.PixelFormat;
 import android.graphics.Point;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
@@ -60,6 +61,7 @@ import android.widget.Toast;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.FutureCallback;
 import com.kamron.pogoiv.clipboard.ClipboardTokenHandler;
 import com.kamron.pogoiv.logic.CPRange;
 import com.kamron.pogoiv.logic.Data;
@@ -67,24 +69,32 @@ import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
 import com.kamron.pogoiv.logic.PokeSpam;
+import com.kamron.pogoiv.logic.PokedexData;
 import com.kamron.pogoiv.logic.Pokemon;
 import com.kamron.pogoiv.logic.PokemonNameCorrector;
 import com.kamron.pogoiv.logic.PokemonShareHandler;
 import com.kamron.pogoiv.logic.ScanContainer;
 import com.kamron.pogoiv.logic.ScanResult;
 import com.kamron.pogoiv.logic.UpgradeCost;
+import com.kamron.pogoiv.ocr.ImageSource;
+import com.kamron.pogoiv.tracing.ScanTracer;
+import com.kamron.pogoiv.tracing.Stage;
 import com.kamron.pogoiv.widgets.IVResultsAdapter;
 import com.kamron.pogoiv.widgets.PokemonSpinnerAdapter;
 
-import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import io.apptik.widget.MultiSlider;
+import timber.log.Timber;
 
 import static com.kamron.pogoiv.GoIVSettings.APPRAISAL_WINDOW_POSITION;
 
@@ -116,9 +126,12 @@ public class Pokefly extends Service {
     private static final String KEY_SEND_UNIQUE_ID = "key_send_unique_id";
 
     private static final String ACTION_PROCESS_BITMAP = "com.kamron.pogoiv.PROCESS_BITMAP";
-    private static final String KEY_BITMAP = "bitmap";
+    private static final String KEY_BITMAP_HANDLE = "bitmap-handle";
     private static final String KEY_SCREENSHOT_FILE = "ss-file";
 
+    private static final String ACTION_BATCH_SCAN = "com.kamron.pogoiv.BATCH_SCAN";
+    private static final String KEY_SCREENSHOTS = "screenshots";
+
     private static final String PREF_USER_CORRECTIONS = "com.kamron.pogoiv.USER_CORRECTIONS";
 
     private static final int NOTIFICATION_REQ_CODE = 8959;
@@ -137,7 +150,11 @@ public class Pokefly extends Service {
     private ScreenGrabber screen;
     private ScreenShotHelper screenShotHelper;
     private OcrHelper ocr;
+    private TesseractPool tesseractPool;
+    private SpeculativeScanner speculativeScanner;
+    private BatchScanner batchScanner;
     private GoIVSettings settings;
+    private ClipboardTokenHandler clipboardTokenHandler;
 
     private Point[] area = new Point[2];
 
@@ -384,10 +401,30 @@ public class Pokefly extends Service {
         intent.putExtra(KEY_SEND_UNIQUE_ID, scanResult.getPokemonUniqueID());
     }
 
-    public static Intent createProcessBitmapIntent(Bitmap bitmap, String file) {
+    /**
+     * Send a screenshot to Pokefly to be scanned. The bitmap is handed over in memory rather than through the intent,
+     * and recycled once scanned, or right away if Pokefly isn't running.
+     *
+     * @param context Context to send the broadcast with.
+     * @param bitmap  The screenshot, which the caller must not use anymore.
+     * @param file    The path of the screenshot file to delete after the scan, or null to keep it.
+     */
+    public static void sendProcessBitmap(Context context, Bitmap bitmap, String file) {
+        int handle = BitmapHandles.put(bitmap);
         Intent intent = new Intent(ACTION_PROCESS_BITMAP);
-        intent.putExtra(KEY_BITMAP, bitmap);
+        intent.putExtra(KEY_BITMAP_HANDLE, handle);
         intent.putExtra(KEY_SCREENSHOT_FILE, file);
+        if (!LocalBroadcastManager.getInstance(context).sendBroadcast(intent)) {
+            Bitmap unused = BitmapHandles.take(handle);
+            if (unused != null) {
+                unused.recycle();
+            }
+        }
+    }
+
+    public static Intent createBatchScanIntent(ArrayList<Uri> screenshots) {
+        Intent intent = new Intent(ACTION_BATCH_SCAN);
+        intent.putParcelableArrayListExtra(KEY_SCREENSHOTS, screenshots);
         return intent;
     }
 
@@ -422,15 +459,30 @@ public class Pokefly extends Service {
         return getPokemonNamesArray();
     }
 
-    @Override
-    public void onCreate() {
-        super.onCreate();
-
-        running = true;
-
-        LocalBroadcastManager.getInstance(this).sendBroadcast(new Intent(ACTION_UPDATE_UI));
-
-        settings = GoIVSettings.getInstance(this);
+    /**
+     * Create the PokeInfoCalculator from the pokedex asset, mapped in memory instead of parsing the resource arrays.
+     * The resource arrays are only read if the asset can't be.
+     */
+    private void initPokeInfoCalculator() {
+        if (PokeInfoCalculator.getInstance() != null) {
+            pokeInfoCalculator = PokeInfoCalculator.getInstance();
+            return;
+        }
+        try {
+            AssetFileDescriptor descriptor = getAssets().openFd(PokedexData.ASSET_NAME);
+            FileInputStream in = descriptor.createInputStream();
+            try {
+                PokedexData pokedexData = PokedexData.read(in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        descriptor.getStartOffset(), descriptor.getLength()));
+                pokeInfoCalculator = PokeInfoCalculator.getInstance(getPokemonNamesArray(),
+                        getPokemonDisplayNamesArray(), pokedexData);
+                return;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            Timber.e(e, "Could not read the pokedex asset");
+        }
         pokeInfoCalculator = PokeInfoCalculator.getInstance(
                 getPokemonNamesArray(),
                 getPokemonDisplayNamesArray(),
@@ -440,16 +492,32 @@ public class Pokefly extends Service {
                 getResources().getIntArray(R.array.devolutionNumber),
                 getResources().getIntArray(R.array.evolutionCandyCost),
                 getResources().getIntArray(R.array.candyNames));
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        running = true;
+
+        LocalBroadcastManager.getInstance(this).sendBroadcast(new Intent(ACTION_UPDATE_UI));
+
+        settings = GoIVSettings.getInstance(this);
+        ScanTracer.setEnabled(settings.isScanTracingEnabled());
+        initPokeInfoCalculator();
         displayMetrics = this.getResources().getDisplayMetrics();
         initOcr();
         windowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
         clipboard = (ClipboardManager) getSystemService(CLIPBOARD_SERVICE);
+        clipboardTokenHandler = new ClipboardTokenHandler(getApplicationContext());
+        settings.registerOnSharedPreferenceChangeListener(clipboardTokenHandler);
         sharedPref = getSharedPreferences(PREF_USER_CORRECTIONS, Context.MODE_PRIVATE);
         corrector = new PokemonNameCorrector(pokeInfoCalculator);
 
         LocalBroadcastManager.getInstance(this).registerReceiver(displayInfo, new IntentFilter(ACTION_SEND_INFO));
         LocalBroadcastManager.getInstance(this).registerReceiver(processBitmap,
                 new IntentFilter(ACTION_PROCESS_BITMAP));
+        LocalBroadcastManager.getInstance(this).registerReceiver(batchScan, new IntentFilter(ACTION_BATCH_SCAN));
     }
 
     @Override
@@ -480,6 +548,9 @@ public class Pokefly extends Service {
                 autoAppraisal = new AutoAppraisal(screen, ocr, this, attDefStaLayout,
                         attCheckbox, defCheckbox, staCheckbox,
                         appraisalIVRangeGroup, appraisalStatsGroup);
+                if (settings.isSpeculativeScanEnabled()) {
+                    speculativeScanner = new SpeculativeScanner(screen, ocr);
+                }
             } else {
                 screenShotHelper = ScreenShotHelper.start(Pokefly.this);
             }
@@ -585,6 +656,13 @@ public class Pokefly extends Service {
                     (pixels[0] == Color.rgb(250, 250, 250) || pixels[0] == Color.rgb(249, 249, 249))
                             && pixels[1] == Color.rgb(28, 135, 150);
             setIVButtonDisplay(shouldShow);
+            if (speculativeScanner != null) {
+                if (shouldShow) {
+                    speculativeScanner.scanWhenStable(trainerLevel);
+                } else {
+                    speculativeScanner.cancel();
+                }
+            }
             return shouldShow;
         }
         return false;
@@ -608,13 +686,32 @@ public class Pokefly extends Service {
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        //Hiding the UI isn't a memory shortage, the other levels above it are.
+        if (level >= TRIM_MEMORY_RUNNING_LOW && level != TRIM_MEMORY_UI_HIDDEN && tesseractPool != null) {
+            tesseractPool.trimIdle();
+        }
+    }
+
     @Override
     public void onDestroy() {
         LocalBroadcastManager.getInstance(this).unregisterReceiver(displayInfo);
         LocalBroadcastManager.getInstance(this).unregisterReceiver(processBitmap);
+        LocalBroadcastManager.getInstance(this).unregisterReceiver(batchScan);
+        settings.unregisterOnSharedPreferenceChangeListener(clipboardTokenHandler);
+        if (batchScanner != null) {
+            batchScanner.cancel();
+            batchScanner = null;
+        }
 
         if (!batterySaver) {
             unwatchScreen();
+            if (speculativeScanner != null) {
+                speculativeScanner.quit();
+                speculativeScanner = null;
+            }
             if (screen != null) {
                 screen.exit();
                 screen = null;
@@ -1219,8 +1316,10 @@ public class Pokefly extends Service {
         }
 
 
+        long start = ScanTracer.begin();
         IVScanResult ivScanResult = pokeInfoCalculator.getIVPossibilities(pokemon, estimatedPokemonLevel,
                 pokemonHP.get(), pokemonCP.get());
+        ScanTracer.end(Stage.IV_POSSIBILITIES, start);
 
         refineByAvailableAppraisalInfo(ivScanResult);
 
@@ -1228,7 +1327,9 @@ public class Pokefly extends Service {
         if (ivScanResult.iVCombinations.size() > 0) {
             addClipboardInfoIfSettingOn(ivScanResult);
         }
+        start = ScanTracer.begin();
         populateResultsBox(ivScanResult);
+        ScanTracer.end(Stage.OVERLAY_RESULTS, start);
         boolean enableCompare = ScanContainer.scanContainer.prevScan != null;
         exResCompare.setEnabled(enableCompare);
         exResCompare.setTextColor(getColorC(enableCompare ? R.color.colorPrimary : R.color.unimportantText));
@@ -1377,15 +1478,16 @@ public class Pokefly extends Service {
      */
     private void addClipboardInfoIfSettingOn(IVScanResult ivScanResult) {
         if (settings.shouldCopyToClipboard()) {
-            ClipboardTokenHandler cth = new ClipboardTokenHandler(getApplicationContext());
+            long start = ScanTracer.begin();
             String clipResult = "";
 
             // has the user enabled the setting for different results and is there just a single result??
             if (settings.shouldCopyToClipboardSingle() && ivScanResult.getCount() == 1) {
-                clipResult = cth.getResults(ivScanResult, pokeInfoCalculator, true);
+                clipResult = clipboardTokenHandler.getResults(ivScanResult, pokeInfoCalculator, true);
             } else {
-                clipResult = cth.getResults(ivScanResult, pokeInfoCalculator, false);
+                clipResult = clipboardTokenHandler.getResults(ivScanResult, pokeInfoCalculator, false);
             }
+            ScanTracer.end(Stage.CLIPBOARD_RENDER, start);
 
             if (settings.shouldCopyToClipboardShowToast()) {
                 Toast toast = Toast.makeText(this, String.format(getString(R.string.clipboard_copy_toast), clipResult),
@@ -1405,12 +1507,13 @@ public class Pokefly extends Service {
     public void addSpecificClipboard(IVScanResult ivScanResult, IVCombination ivCombination) {
 
 
-        ClipboardTokenHandler cth = new ClipboardTokenHandler(getApplicationContext());
+        long start = ScanTracer.begin();
         String clipResult = "";
         IVScanResult singleIVScanResult = new IVScanResult(ivScanResult.pokemon, ivScanResult.estimatedPokemonLevel,
                 ivScanResult.scannedCP);
         singleIVScanResult.addIVCombination(ivCombination.att, ivCombination.def, ivCombination.sta);
-        clipResult = cth.getResults(singleIVScanResult, pokeInfoCalculator, true);
+        clipResult = clipboardTokenHandler.getResults(singleIVScanResult, pokeInfoCalculator, true);
+        ScanTracer.end(Stage.CLIPBOARD_RENDER, start);
 
 
         Toast toast = Toast.makeText(this, String.format(getString(R.string.clipboard_copy_toast), clipResult),
@@ -1603,8 +1706,7 @@ public class Pokefly extends Service {
     private void setPokemonPerfectionPercentageText(IVScanResult ivScanResult, Pokemon selectedPokemon) {
         CPRange cpRange = pokeInfoCalculator.getCpRangeAtLevel(selectedPokemon,
                 ivScanResult.getCombinationLowIVs(), ivScanResult.getCombinationHighIVs(), 40);
-        double maxCP = pokeInfoCalculator.getCpRangeAtLevel(selectedPokemon,
-                IVCombination.MAX, IVCombination.MAX, 40).high;
+        double maxCP = pokeInfoCalculator.getPerfectCpAtLevel(selectedPokemon, 40);
         double perfection = (100.0 * cpRange.getFloatingAvg()) / maxCP;
         int difference = (int) (cpRange.getFloatingAvg() - maxCP);
         DecimalFormat df = new DecimalFormat("#.#");
@@ -1731,7 +1833,7 @@ public class Pokefly extends Service {
      * @param scannedPokemon the pokemon to use for selecting a good default, if init is performed
      */
     private Pokemon initPokemonSpinnerIfNeeded(Pokemon scannedPokemon) {
-        ArrayList<Pokemon> evolutionLine = pokeInfoCalculator.getEvolutionLine(scannedPokemon);
+        List<Pokemon> evolutionLine = pokeInfoCalculator.getEvolutionLine(scannedPokemon);
         extendedEvolutionSpinnerAdapter.updatePokemonList(evolutionLine);
 
         int spinnerSelectionIdx = extendedEvolutionSpinner.getSelectedItemPosition();
@@ -1926,11 +2028,14 @@ public class Pokefly extends Service {
      * shows the final results.
      */
     private void showInfoLayout() {
+        long start = ScanTracer.begin();
         if (!infoShownReceived) {
 
             infoShownReceived = true;
+            long correctionStart = ScanTracer.begin();
             PokemonNameCorrector.PokeDist possiblePoke = corrector.getPossiblePokemon(pokemonName, candyName,
                     candyUpgradeCost, pokemonType);
+            ScanTracer.end(Stage.NAME_CORRECTION, correctionStart);
             initialButtonsLayout.setVisibility(View.VISIBLE);
             onCheckButtonsLayout.setVisibility(View.GONE);
 
@@ -1971,6 +2076,7 @@ public class Pokefly extends Service {
         }
         showCandyTextBoxBasedOnSettings();
         openAppraisalBoxIfSettingOn();
+        ScanTracer.end(Stage.OVERLAY_INPUT, start);
     }
 
     private <T> String optionalIntToString(Optional<T> src) {
@@ -1982,19 +2088,11 @@ public class Pokefly extends Service {
     }
 
     private void initOcr() {
-        File externalFilesDir = getExternalFilesDir(null);
-        if (externalFilesDir == null) {
-            externalFilesDir = getFilesDir();
-        }
-        String extdir = externalFilesDir.toString();
-        if (!new File(extdir + "/tessdata/eng.traineddata").exists()) {
-            CopyUtils.copyAssetFolder(getAssets(), "tessdata", extdir + "/tessdata");
-        }
+        //Usually already warm, MainActivity starts the pool when the app is launched.
+        tesseractPool = TesseractPool.getInstance(this);
 
-        ocr = OcrHelper.init(extdir, displayMetrics.widthPixels, displayMetrics.heightPixels,
-                pokeInfoCalculator.get(28).name,
-                pokeInfoCalculator.get(31).name,
-                settings);
+        ocr = OcrHelper.init(tesseractPool, displayMetrics.widthPixels, displayMetrics.heightPixels,
+                pokeInfoCalculator, settings);
     }
 
 
@@ -2005,17 +2103,12 @@ public class Pokefly extends Service {
      * @param pokemonImage   The image of the pokemon
      * @param screenShotPath The screenshot path if it is a file, used to delete once checked
      */
-    private void scanPokemon(Bitmap pokemonImage, @NonNull Optional<String> screenShotPath) {
+    private void scanPokemon(ImageSource pokemonImage, @NonNull Optional<String> screenShotPath) {
         //WARNING: this method *must* always send an intent at the end, no matter what, to avoid the application
         // hanging.
-        boolean s8Patch = false;
-        double screenRatio = (double) displayMetrics.heightPixels / (double) displayMetrics.widthPixels;
-        if (screenRatio > 1.9 && screenRatio < 2.06) {
-            s8Patch = true;
-        }
         Intent info = Pokefly.createNoInfoIntent();
         try {
-            ScanResult res = ocr.scanPokemon(pokemonImage, trainerLevel, s8Patch);
+            ScanResult res = ocr.scanPokemon(pokemonImage, trainerLevel);
             if (res.isFailed()) {
                 Toast.makeText(Pokefly.this, getString(R.string.scan_pokemon_failed), Toast.LENGTH_SHORT).show();
             }
@@ -2027,14 +2120,38 @@ public class Pokefly extends Service {
 
     /**
      * Called by intent from pokefly, captures the screen and runs it through scanPokemon.
+     * With speculative scanning, the scan is usually done already and scanPokemon finds its result.
      */
     private void takeScreenshot() {
-        Bitmap bmp = screen.grabScreen();
-        if (bmp == null) {
-            return;
+        if (speculativeScanner != null) {
+            speculativeScanner.hurry();
         }
-        scanPokemon(bmp, Optional.<String>absent());
-        bmp.recycle();
+        tesseractPool.whenReady(new FutureCallback<String>() {
+            @Override
+            public void onSuccess(String dataPath) {
+                if (screen == null) {
+                    return; // stopped during the warm-up
+                }
+                ImageSource image = screen.grabScreenImage();
+                if (image == null) {
+                    return;
+                }
+                scanPokemon(image, Optional.<String>absent());
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                scanNotPossible();
+            }
+        });
+    }
+
+    /**
+     * Tell the user the OCR could not start, and let the info screen know there won't be a scan to show.
+     */
+    private void scanNotPossible() {
+        Toast.makeText(Pokefly.this, getString(R.string.scan_pokemon_failed), Toast.LENGTH_SHORT).show();
+        LocalBroadcastManager.getInstance(Pokefly.this).sendBroadcast(Pokefly.createNoInfoIntent());
     }
 
     /**
@@ -2044,30 +2161,77 @@ public class Pokefly extends Service {
     private final BroadcastReceiver processBitmap = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            Bitmap bitmap = (Bitmap) intent.getParcelableExtra(KEY_BITMAP);
+            final Bitmap bitmap = BitmapHandles.take(intent.getIntExtra(KEY_BITMAP_HANDLE, 0));
             if (bitmap == null) {
                 return;
             }
             String screenShotPathRaw = intent.getStringExtra(KEY_SCREENSHOT_FILE);
-            Optional<String> screenShotPath;
+            final Optional<String> screenShotPath;
             if (screenShotPathRaw != null) {
                 screenShotPath = Optional.of(screenShotPathRaw);
             } else {
                 screenShotPath = Optional.absent();
             }
 
-            // this should allow processing of images where the displaymetrics don't match, for example a different
-            // phone, it is known that the red dot might not display correctly.
-            if (displayMetrics.heightPixels != bitmap.getHeight() || displayMetrics.widthPixels != bitmap.getWidth()) {
-                Matrix matrix = new Matrix();
-                float ratio = displayMetrics.widthPixels / (float) bitmap.getWidth();
-                matrix.postScale(ratio, ratio);
-                bitmap = Bitmap.createBitmap(bitmap, 0, 0, displayMetrics.widthPixels, displayMetrics.heightPixels,
-                        matrix, true);
-            }
+            tesseractPool.whenReady(new FutureCallback<String>() {
+                @Override
+                public void onSuccess(String dataPath) {
+                    scanSharedBitmap(bitmap, screenShotPath);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    bitmap.recycle();
+                    scanNotPossible();
+                }
+            });
+        }
+    };
 
-            scanPokemon(bitmap, screenShotPath);
+    /**
+     * Scan a shared screenshot, and recycle it.
+     */
+    private void scanSharedBitmap(Bitmap bitmap, Optional<String> screenShotPath) {
+        // this should allow processing of images where the displaymetrics don't match, for example a different
+        // phone, it is known that the red dot might not display correctly. ScreenshotDecoder already decodes
+        // screenshots at our width, this only catches other bitmaps.
+        Bitmap scaled = ScreenshotDecoder.scaleToWidth(bitmap, displayMetrics.widthPixels);
+        if (scaled != bitmap) {
             bitmap.recycle();
+            bitmap = scaled;
+        }
+
+        scanPokemon(new BitmapImageSource(bitmap), screenShotPath);
+        bitmap.recycle();
+    }
+
+    /**
+     * Screenshots were shared or picked in the settings to be scanned all at once, write a report of them.
+     */
+    private final BroadcastReceiver batchScan = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            ArrayList<Uri> screenshots = intent.getParcelableArrayListExtra(KEY_SCREENSHOTS);
+            if (screenshots == null || screenshots.isEmpty()) {
+                return;
+            }
+            if (batchScanner != null && !batchScanner.isFinished()) {
+                BatchScanner.deleteCopies(Pokefly.this, screenshots);
+                Toast.makeText(Pokefly.this, R.string.batch_scan_busy, Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            batchScanner = new BatchScanner(Pokefly.this, tesseractPool, displayMetrics.widthPixels,
+                    displayMetrics.heightPixels, trainerLevel, settings.isPokeSpamEnabled(), pokeInfoCalculator,
+                    corrector);
+            try {
+                batchScanner.start(screenshots);
+            } catch (IOException e) {
+                Timber.e(e);
+                batchScanner = null;
+                BatchScanner.deleteCopies(Pokefly.this, screenshots);
+                Toast.makeText(Pokefly.this, R.string.batch_scan_failed, Toast.LENGTH_SHORT).show();
+            }
         }
     };
 
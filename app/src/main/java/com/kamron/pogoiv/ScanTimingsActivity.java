@@ -0,0 +1,82 @@
+package com.kamron.pogoiv;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.View;
+import android.widget.TextView;
+
+import com.kamron.pogoiv.tracing.ScanTracer;
+import com.kamron.pogoiv.tracing.StageStats;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Debug screen showing the timings recorded by ScanTracer, which can be shared as CSV or JSON.
+ */
+public class ScanTimingsActivity extends AppCompatActivity {
+
+    private TextView scanTimingsTable;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_scan_timings);
+        scanTimingsTable = (TextView) findViewById(R.id.scanTimingsTable);
+
+        findViewById(R.id.scanTimingsReset).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                ScanTracer.clear();
+                showStats();
+            }
+        });
+        findViewById(R.id.scanTimingsExportCsv).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                share(ScanTracer.toCsv(ScanTracer.getStats()), "text/csv");
+            }
+        });
+        findViewById(R.id.scanTimingsExportJson).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                share(ScanTracer.toJson(ScanTracer.getStats()), "application/json");
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showStats();
+    }
+
+    private void showStats() {
+        List<StageStats> stats = ScanTracer.getStats();
+        if (stats.isEmpty()) {
+            scanTimingsTable.setText(R.string.scan_timings_empty);
+            return;
+        }
+
+        StringBuilder table = new StringBuilder();
+        for (StageStats stageStats : stats) {
+            table.append(String.format(Locale.US, "%-18s %.1f / %.1f / %.1f (%d)", stageStats.stage.label,
+                    stageStats.p50Nanos / 1e6, stageStats.p95Nanos / 1e6, stageStats.p99Nanos / 1e6,
+                    stageStats.count));
+            if (stageStats.getCacheHitRatio() >= 0) {
+                table.append(String.format(Locale.US, ", %d%% of %d", Math.round(stageStats.getCacheHitRatio() * 100),
+                        stageStats.cacheLookups));
+            }
+            table.append('\n');
+        }
+        scanTimingsTable.setText(table);
+    }
+
+    private void share(String text, String mimeType) {
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.setType(mimeType);
+        intent.putExtra(Intent.EXTRA_TEXT, text);
+        startActivity(Intent.createChooser(intent, getString(R.string.title_activity_scan_timings)));
+    }
+}
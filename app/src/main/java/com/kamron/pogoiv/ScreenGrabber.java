@@ -1,7 +1,6 @@
 package com.kamron.pogoiv;
 
 import android.annotation.TargetApi;
-import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.graphics.PixelFormat;
 import android.graphics.Point;
@@ -16,6 +15,11 @@ import android.support.annotation.ColorInt;
 import android.support.annotation.Nullable;
 import android.util.DisplayMetrics;
 
+import com.kamron.pogoiv.ocr.ByteBufferImageSource;
+import com.kamron.pogoiv.ocr.ImageSource;
+import com.kamron.pogoiv.tracing.ScanTracer;
+import com.kamron.pogoiv.tracing.Stage;
+
 import java.nio.ByteBuffer;
 
 import timber.log.Timber;
@@ -31,6 +35,8 @@ public class ScreenGrabber {
     private DisplayMetrics rawDisplayMetrics;
     private DisplayMetrics displayMetrics;
     private VirtualDisplay virtualDisplay;
+    private ByteBuffer screenBuffer;
+    private ByteBuffer backgroundScreenBuffer;
 
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     private ScreenGrabber(MediaProjection mediaProjection, DisplayMetrics raw, DisplayMetrics display) {
@@ -73,20 +79,35 @@ public class ScreenGrabber {
             projection = null;
             rawDisplayMetrics = null;
             displayMetrics = null;
+            screenBuffer = null;
+            backgroundScreenBuffer = null;
             instance = null;
         }
     }
 
-    private Bitmap getBitmap(ByteBuffer buffer, int pixelStride, int rowPadding) {
-        Bitmap bmp = Bitmap.createBitmap(rawDisplayMetrics.widthPixels + rowPadding / pixelStride,
-                displayMetrics.heightPixels, Bitmap.Config.ARGB_8888);
-        bmp.copyPixelsFromBuffer(buffer);
-        return bmp;
+    /**
+     * Capture the current screen as an image reading straight from a copy of the screen buffer, without creating a
+     * Bitmap. The copy is reused by the next call, so the image is only valid until the screen is grabbed again.
+     *
+     * @return The screen, or null if it could not be captured.
+     */
+    public synchronized @Nullable ImageSource grabScreenImage() {
+        return copyScreen(false);
     }
 
-    public @Nullable Bitmap grabScreen() {
+    /**
+     * Same as grabScreenImage, but copying the screen to a buffer of its own, so the image stays valid while the
+     * screen is grabbed by grabScreenImage. The image is only valid until grabBackgroundScreenImage is called again.
+     *
+     * @return The screen, or null if it could not be captured.
+     */
+    public synchronized @Nullable ImageSource grabBackgroundScreenImage() {
+        return copyScreen(true);
+    }
+
+    private @Nullable ImageSource copyScreen(boolean background) {
+        long start = ScanTracer.begin();
         Image image = null;
-        Bitmap bmp = null;
         Integer retries = 100;
 
         while (image == null && retries > 0) {
@@ -95,28 +116,42 @@ public class ScreenGrabber {
                 //Let's allow this to still happen.
                 image = imageReader.acquireLatestImage();
             } catch (Exception exception) {
-                Timber.e("Error thrown in grabScreen() - acquireLatestImage()");
+                Timber.e("Error thrown in copyScreen() - acquireLatestImage()");
                 Timber.e(exception);
             }
             retries--;
         }
-        if (image != null) {
-            final Image.Plane[] planes = image.getPlanes();
-            final ByteBuffer buffer = planes[0].getBuffer();
-            int pixelStride = planes[0].getPixelStride();
-            int rowStride = planes[0].getRowStride();
-            int rowPadding = rowStride - pixelStride * rawDisplayMetrics.widthPixels;
-            image.close();
+        if (image == null) {
+            return null;
+        }
 
-            try {
-                bmp = getBitmap(buffer, pixelStride, rowPadding);
-            } catch (Exception exception) {
-                Timber.e("Exception thrown in grabScreen() - when creating bitmap");
-                Timber.e(exception);
+        try {
+            Image.Plane plane = image.getPlanes()[0];
+            ByteBuffer buffer = plane.getBuffer();
+            // The plane buffer is released with the image, so copy it before closing the image.
+            ByteBuffer copy = background ? backgroundScreenBuffer : screenBuffer;
+            if (copy == null || copy.capacity() < buffer.remaining()) {
+                copy = ByteBuffer.allocateDirect(buffer.remaining());
+                if (background) {
+                    backgroundScreenBuffer = copy;
+                } else {
+                    screenBuffer = copy;
+                }
             }
+            copy.clear();
+            copy.put(buffer);
+            copy.flip();
+            ImageSource screen = new ByteBufferImageSource(copy, rawDisplayMetrics.widthPixels,
+                    displayMetrics.heightPixels, plane.getPixelStride(), plane.getRowStride());
+            ScanTracer.end(Stage.GRAB_SCREEN, start);
+            return screen;
+        } catch (Exception exception) {
+            Timber.e("Exception thrown in copyScreen() - when copying the screen");
+            Timber.e(exception);
+            return null;
+        } finally {
+            image.close();
         }
-
-        return bmp;
     }
 
     /**
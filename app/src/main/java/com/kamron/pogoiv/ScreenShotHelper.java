@@ -2,36 +2,61 @@ package com.kamron.pogoiv;
 
 import android.content.ContentResolver;
 import android.content.Context;
-import android.content.Intent;
 import android.database.ContentObserver;
 import android.database.Cursor;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.provider.MediaStore;
-import android.support.v4.content.LocalBroadcastManager;
+import android.support.annotation.Nullable;
+import android.util.DisplayMetrics;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import timber.log.Timber;
 
 /**
  * Created by Sarav on 9/9/2016.
+ * Watches the media store for new screenshots and sends them to Pokefly. The media store is queried and the
+ * screenshots decoded on a background thread, so the UI never waits for them.
  */
 public class ScreenShotHelper {
 
+    /**
+     * How long to wait for more changes of the same screenshot before decoding it; the media store reports several
+     * changes while a screenshot is saved.
+     */
+    private static final long DEBOUNCE_DELAY_MS = 300;
+    private static final long FIRST_RETRY_DELAY_MS = 250;
+    private static final int MAX_DECODE_ATTEMPTS = 5;
+    private static final int MAX_HANDLED_SCREENSHOTS = 10;
+
     private static ScreenShotHelper instance = null;
-    private ContentObserver mediaObserver;
-    private ContentResolver contentResolver;
+    private final ContentObserver mediaObserver;
+    private final ContentResolver contentResolver;
+    private final HandlerThread workerThread;
+    private final Handler workerHandler;
+    // Only accessed on the worker thread.
+    private final Map<String, Runnable> pendingScreenshots = new HashMap<>();
+    private final LinkedHashSet<String> handledScreenshots = new LinkedHashSet<>();
+    private boolean stopped;
 
-    private String getRealPathFromUri(Uri contentUri) {
+    private @Nullable String getRealPathFromUri(Uri contentUri) {
         Cursor cursor = null;
         try {
             String[] proj = {MediaStore.Images.Media.DATA};
             cursor = contentResolver.query(contentUri, proj, null, null,
                     MediaStore.Images.ImageColumns.DATE_TAKEN + " DESC");
+            if (cursor == null || !cursor.moveToFirst()) {
+                return null;
+            }
             int column_index = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.DATA);
-            cursor.moveToFirst();
             return cursor.getString(column_index);
         } finally {
             if (cursor != null) {
@@ -42,16 +67,20 @@ public class ScreenShotHelper {
 
     private ScreenShotHelper(final Context context) {
         this.contentResolver = context.getContentResolver();
-        mediaObserver = new ContentObserver(new Handler()) {
+        workerThread = new HandlerThread("GoIV screenshot observer");
+        workerThread.start();
+        workerHandler = new Handler(workerThread.getLooper());
+        mediaObserver = new ContentObserver(workerHandler) {
             @Override
             public void onChange(boolean selfChange, Uri uri) {
                 super.onChange(selfChange, uri);
-                if (!uri.toString().contains("images")) {
+                if (stopped || uri == null || !uri.toString().contains("images")) {
                     return;
                 }
 
                 final String pathChange = getRealPathFromUri(uri);
-                if (!pathChange.contains("Screenshot")) {
+                if (pathChange == null || !pathChange.contains("Screenshot")
+                        || handledScreenshots.contains(pathChange)) {
                     return;
                 }
 
@@ -64,13 +93,14 @@ public class ScreenShotHelper {
                     return;
                 }
 
-                try {
-                    Bitmap bitmap = BitmapFactory.decodeFile(pathChange);
-                    Intent newintent = Pokefly.createProcessBitmapIntent(bitmap, pathChange);
-                    LocalBroadcastManager.getInstance(context).sendBroadcast(newintent);
-                } catch (Exception e) {
-                    // TODO: Retry a few times after a wait
+                // Restart the wait if this screenshot already changed recently.
+                Runnable pending = pendingScreenshots.remove(pathChange);
+                if (pending != null) {
+                    workerHandler.removeCallbacks(pending);
                 }
+                Runnable decode = new DecodeScreenshot(context, pathChange, 1);
+                pendingScreenshots.put(pathChange, decode);
+                workerHandler.postDelayed(decode, DEBOUNCE_DELAY_MS);
             }
         };
         contentResolver.registerContentObserver(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, true,
@@ -90,10 +120,69 @@ public class ScreenShotHelper {
 
     }
 
+    /**
+     * Stop watching for screenshots. The worker thread is torn down from its own queue, so a change or decode it is
+     * handling right now finishes first, and any queued after it is skipped.
+     */
     public void stop() {
         contentResolver.unregisterContentObserver(mediaObserver);
-        contentResolver = null;
-        mediaObserver = null;
+        workerHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                stopped = true;
+                workerHandler.removeCallbacksAndMessages(null);
+                workerThread.quitSafely();
+            }
+        });
         instance = null;
     }
+
+    /**
+     * Decodes a screenshot and sends it to Pokefly, retrying with a growing delay while the file can't be decoded,
+     * which happens when it is still being written.
+     */
+    private class DecodeScreenshot implements Runnable {
+        private final Context context;
+        private final String path;
+        private final int attempt;
+
+        DecodeScreenshot(Context context, String path, int attempt) {
+            this.context = context;
+            this.path = path;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            pendingScreenshots.remove(path);
+            if (stopped) {
+                return;
+            }
+            try {
+                DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+                Bitmap bitmap = ScreenshotDecoder.decode(contentResolver, Uri.fromFile(new File(path)),
+                        displayMetrics.widthPixels, displayMetrics.heightPixels);
+                markHandled(path);
+                Pokefly.sendProcessBitmap(context, bitmap, path);
+            } catch (IOException | RuntimeException e) {
+                if (attempt < MAX_DECODE_ATTEMPTS) {
+                    Runnable retry = new DecodeScreenshot(context, path, attempt + 1);
+                    pendingScreenshots.put(path, retry);
+                    workerHandler.postDelayed(retry, FIRST_RETRY_DELAY_MS << (attempt - 1));
+                } else {
+                    Timber.e(e, "Could not decode screenshot %s", path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remember a screenshot was sent, so further changes of its file in the media store are ignored.
+     */
+    private void markHandled(String path) {
+        handledScreenshots.add(path);
+        if (handledScreenshots.size() > MAX_HANDLED_SCREENSHOTS) {
+            handledScreenshots.remove(handledScreenshots.iterator().next());
+        }
+    }
 }
@@ -0,0 +1,144 @@
+package com.kamron.pogoiv;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.net.Uri;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes screenshot files at the size of the screen GoIV scans, without decoding more pixels than that.
+ * <p/>
+ * Only the part of the screenshot which maps to the screen is decoded (leaving out e.g. a navigation bar below it),
+ * or to the rows of it the scan reads, and screenshots of at least twice the screen width are subsampled while
+ * decoding rather than scaled afterwards. Subsampling a screenshot of the screen's own size would lose pixels the
+ * scan reads, since its crops are taken at the resolution of the screen.
+ */
+final class ScreenshotDecoder {
+
+    private ScreenshotDecoder() {
+    }
+
+    /**
+     * Decode a screenshot and scale it to the width of the screen.
+     *
+     * @param resolver     Resolver to open the screenshot with.
+     * @param screenshot   The screenshot file.
+     * @param widthPixels  Width of the screen.
+     * @param heightPixels Height of the screen.
+     * @return The screenshot, as wide as the screen and at most as high.
+     * @throws IOException If the screenshot could not be read or decoded.
+     */
+    static Bitmap decode(ContentResolver resolver, Uri screenshot, int widthPixels, int heightPixels)
+            throws IOException {
+        Bitmap decoded = decodeRegion(resolver, screenshot, widthPixels, heightPixels, heightPixels, null);
+        Bitmap scaled = scaleToWidth(decoded, widthPixels);
+        if (scaled != decoded) {
+            decoded.recycle();
+        }
+        return scaled;
+    }
+
+    /**
+     * Decode the top rows of a screenshot which map to the screen, subsampled as much as possible while staying at
+     * least as wide as the screen.
+     *
+     * @param resolver      Resolver to open the screenshot with.
+     * @param screenshot    The screenshot file.
+     * @param widthPixels   Width of the screen.
+     * @param heightPixels  Height of the screen.
+     * @param scannedHeight How many rows from the top of the screen to decode, like ScreenScanner.getScannedHeight.
+     * @param reuse         A mutable bitmap to decode into if it has the right size, or null.
+     * @return The decoded bitmap, which is reuse if it was decoded into it.
+     * @throws IOException If the screenshot could not be read or decoded.
+     */
+    static Bitmap decodeRegion(ContentResolver resolver, Uri screenshot, int widthPixels, int heightPixels,
+                               int scannedHeight, @Nullable Bitmap reuse) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        InputStream stream = open(resolver, screenshot);
+        try {
+            BitmapFactory.decodeStream(stream, null, options);
+        } finally {
+            stream.close();
+        }
+        int width = options.outWidth;
+        int height = options.outHeight;
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Not an image");
+        }
+
+        // The rows of the screenshot which end up in the scanned part of the screen once scaled to its width.
+        int neededHeight = (int) Math.min(height, (long) Math.min(scannedHeight, heightPixels) * width / widthPixels
+                + 1);
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= widthPixels) {
+            sampleSize *= 2;
+        }
+
+        options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        options.inSampleSize = sampleSize;
+        if (reuse != null && reuse.isMutable() && !reuse.isRecycled()
+                && reuse.getWidth() == (width + sampleSize - 1) / sampleSize
+                && reuse.getHeight() == (neededHeight + sampleSize - 1) / sampleSize) {
+            options.inBitmap = reuse;
+        }
+
+        Bitmap bitmap = null;
+        stream = open(resolver, screenshot);
+        try {
+            BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(stream, false);
+            try {
+                bitmap = decoder.decodeRegion(new Rect(0, 0, width, neededHeight), options);
+            } finally {
+                decoder.recycle();
+            }
+        } catch (IOException e) {
+            // The format can't be decoded by region, fall back to decoding all of it.
+        } finally {
+            stream.close();
+        }
+
+        if (bitmap == null) {
+            options.inBitmap = null;
+            stream = open(resolver, screenshot);
+            try {
+                bitmap = BitmapFactory.decodeStream(stream, null, options);
+            } finally {
+                stream.close();
+            }
+        }
+        if (bitmap == null) {
+            throw new IOException("Could not decode image");
+        }
+        return bitmap;
+    }
+
+    /**
+     * Scale a bitmap to a width, keeping its aspect ratio.
+     *
+     * @return The bitmap itself if it already has that width, otherwise a new bitmap.
+     */
+    static Bitmap scaleToWidth(Bitmap bitmap, int widthPixels) {
+        if (bitmap.getWidth() == widthPixels) {
+            return bitmap;
+        }
+        int height = Math.round(bitmap.getHeight() * widthPixels / (float) bitmap.getWidth());
+        return Bitmap.createScaledBitmap(bitmap, widthPixels, height, true);
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri screenshot) throws IOException {
+        InputStream stream = resolver.openInputStream(screenshot);
+        if (stream == null) {
+            throw new IOException("Could not open image");
+        }
+        return stream;
+    }
+}
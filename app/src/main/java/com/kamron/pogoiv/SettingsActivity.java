@@ -5,7 +5,9 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Build;
+import android.net.Uri;
 import android.os.Bundle;
+import android.preference.EditTextPreference;
 import android.preference.Preference;
 import android.preference.PreferenceFragment;
 import android.preference.PreferenceScreen;
@@ -16,9 +18,16 @@ import android.support.v7.app.AppCompatActivity;
 import android.widget.Toast;
 
 import com.kamron.pogoiv.clipboard.ClipboardModifierActivity;
+import com.kamron.pogoiv.tracing.ScanTracer;
 import com.kamron.pogoiv.updater.AppUpdate;
 import com.kamron.pogoiv.updater.AppUpdateUtil;
 
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
 public class SettingsActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -73,6 +82,46 @@ public class SettingsActivity extends AppCompatActivity {
                 }
             });
 
+            //Initialize the folder and button of the batch scan
+            final GoIVSettings settings = GoIVSettings.getInstance(getActivity());
+            EditTextPreference batchScanFolder = (EditTextPreference) findPreference(GoIVSettings.BATCH_SCAN_FOLDER);
+            batchScanFolder.setText(settings.getBatchScanFolder());
+            batchScanFolder.setSummary(settings.getBatchScanFolder());
+            batchScanFolder.setOnPreferenceChangeListener(new Preference.OnPreferenceChangeListener() {
+                @Override
+                public boolean onPreferenceChange(Preference preference, Object newValue) {
+                    preference.setSummary((String) newValue);
+                    return true;
+                }
+            });
+            Preference batchScanButton = findPreference(getString(R.string.batch_scan_start_button));
+            batchScanButton.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+                @Override
+                public boolean onPreferenceClick(Preference preference) {
+                    startBatchScan(settings.getBatchScanFolder());
+                    return true;
+                }
+            });
+
+            //Initialize the switch and button of the scan timings
+            Preference scanTracingSwitch = findPreference(GoIVSettings.SCAN_TRACING);
+            scanTracingSwitch.setOnPreferenceChangeListener(new Preference.OnPreferenceChangeListener() {
+                @Override
+                public boolean onPreferenceChange(Preference preference, Object newValue) {
+                    ScanTracer.setEnabled((Boolean) newValue);
+                    return true;
+                }
+            });
+            Preference scanTimingsButton = findPreference(getString(R.string.view_scan_timings_button));
+            scanTimingsButton.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+                @Override
+                public boolean onPreferenceClick(Preference preference) {
+                    Intent intent = new Intent(getActivity(), ScanTimingsActivity.class);
+                    startActivity(intent);
+                    return true;
+                }
+            });
+
             //Initialize the button which opens the credits activity
             Preference creditsButton = (Preference) findPreference(getString(R.string.view_credits_button));
             creditsButton.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
@@ -139,5 +188,38 @@ public class SettingsActivity extends AppCompatActivity {
                 getPreferenceScreen().removePreference(useDefaultPokemonNamePreference);
             }
         }
+
+        /**
+         * Send the screenshots of a folder to Pokefly to be scanned all at once.
+         *
+         * @param folderPath The folder of the screenshots.
+         */
+        private void startBatchScan(String folderPath) {
+            if (!Pokefly.isRunning()) {
+                Toast.makeText(getActivity(), R.string.batch_scan_goiv_not_running, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            File[] files = new File(folderPath).listFiles(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    String lowerCaseName = name.toLowerCase(Locale.US);
+                    return lowerCaseName.endsWith(".png") || lowerCaseName.endsWith(".jpg")
+                            || lowerCaseName.endsWith(".jpeg");
+                }
+            });
+            if (files == null || files.length == 0) {
+                Toast.makeText(getActivity(), getString(R.string.batch_scan_no_screenshots, folderPath),
+                        Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            Arrays.sort(files);
+            ArrayList<Uri> screenshots = new ArrayList<>();
+            for (File file : files) {
+                screenshots.add(Uri.fromFile(file));
+            }
+            LocalBroadcastManager.getInstance(getActivity()).sendBroadcast(
+                    Pokefly.createBatchScanIntent(screenshots));
+        }
     }
 }
@@ -5,10 +5,12 @@ import android.content.Intent;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.MediaStore;
 import android.support.v4.content.LocalBroadcastManager;
+import android.util.DisplayMetrics;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ShareHandlerActivity extends Activity {
 
@@ -16,22 +18,59 @@ public class ShareHandlerActivity extends Activity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_share_handler);
-        finish();
 
         Intent intent = getIntent();
         String action = intent.getAction();
         String type = intent.getType();
 
+        if (Intent.ACTION_SEND_MULTIPLE.equals(action) && type != null && type.startsWith("image/")) {
+            ArrayList<Uri> imageUris = intent.getParcelableArrayListExtra(Intent.EXTRA_STREAM);
+            if (imageUris != null) {
+                // The shared screenshots can only be read while this activity runs, so it finishes once they're copied.
+                startBatchScan(imageUris);
+                return;
+            }
+        }
+        finish();
+
         if (Intent.ACTION_SEND.equals(action) && type != null && type.startsWith("image/")) {
             Uri imageUri = (Uri) intent.getParcelableExtra(Intent.EXTRA_STREAM);
             try {
-                Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), imageUri);
+                DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
+                Bitmap bitmap = ScreenshotDecoder.decode(getContentResolver(), imageUri, displayMetrics.widthPixels,
+                        displayMetrics.heightPixels);
                 //Using null rather than some file name ensures we do not delete the shared screenshot.
-                Intent newintent = Pokefly.createProcessBitmapIntent(bitmap, null);
-                LocalBroadcastManager.getInstance(ShareHandlerActivity.this).sendBroadcast(newintent);
+                Pokefly.sendProcessBitmap(ShareHandlerActivity.this, bitmap, null);
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
+
+    /**
+     * Copy the shared screenshots in the background, then hand the copies to the batch scan and finish. The copies are
+     * deleted again if no batch scan receives them.
+     */
+    private void startBatchScan(final List<Uri> imageUris) {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final ArrayList<Uri> copies = BatchScanner.copyToCache(ShareHandlerActivity.this, imageUris);
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!copies.isEmpty()) {
+                            Intent batchIntent = Pokefly.createBatchScanIntent(copies);
+                            // Nothing else deletes the copies when Pokefly isn't running to receive them.
+                            if (!LocalBroadcastManager.getInstance(ShareHandlerActivity.this)
+                                    .sendBroadcast(batchIntent)) {
+                                BatchScanner.deleteCopies(ShareHandlerActivity.this, copies);
+                            }
+                        }
+                        finish();
+                    }
+                });
+            }
+        }, "GoIV copy shared screenshots").start();
+    }
 }
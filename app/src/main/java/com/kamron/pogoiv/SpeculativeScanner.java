@@ -0,0 +1,114 @@
+package com.kamron.pogoiv;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import com.kamron.pogoiv.ocr.ImageSource;
+
+/**
+ * Scans the pokemon screen in the background as soon as it's detected, so the scan is usually done by the time the IV
+ * button is pressed. A scan only starts once two frames grabbed STABLE_DELAY_MS apart have the same fingerprint, so
+ * no scan is wasted while the screen is still changing.
+ * <p/>
+ * The result isn't handed over directly: the scan fills the scan memo of ScreenScanner, where the scan of the IV button
+ * finds it without any OCR if the screen still has the same fingerprint. A result which is stale by then is never
+ * looked up, and is forgotten as soon as the same pokemon is scanned with another CP or HP.
+ */
+final class SpeculativeScanner {
+
+    private static final long STABLE_DELAY_MS = 250;
+    private static final int STABLE_RETRIES = 8;
+
+    private final ScreenGrabber screen;
+    private final OcrHelper ocr;
+    private final HandlerThread thread;
+    private final Handler handler;
+
+    /**
+     * Start the background thread of the scans.
+     *
+     * @param screen Where to grab the screen from.
+     * @param ocr    What to scan the screen with.
+     */
+    SpeculativeScanner(ScreenGrabber screen, OcrHelper ocr) {
+        this.screen = screen;
+        this.ocr = ocr;
+        thread = new HandlerThread("GoIV speculative scan", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Scan the screen once it's stable, replacing any scan which didn't start yet.
+     *
+     * @param trainerLevel Current level of the trainer.
+     */
+    void scanWhenStable(int trainerLevel) {
+        handler.removeCallbacksAndMessages(null);
+        handler.post(new StableScreenScan(trainerLevel));
+    }
+
+    /**
+     * Drop the scans which didn't start yet, because the pokemon screen isn't shown anymore.
+     */
+    void cancel() {
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    /**
+     * Drop the scans which didn't start yet, and finish the running one at normal priority, because the scan of the IV
+     * button is about to wait for it.
+     */
+    void hurry() {
+        handler.removeCallbacksAndMessages(null);
+        int threadId = thread.getThreadId();
+        if (threadId != -1) {
+            Process.setThreadPriority(threadId, Process.THREAD_PRIORITY_DEFAULT);
+        }
+    }
+
+    /**
+     * Stop the background thread, waiting for the running scan to finish so the OCR can be exited afterwards.
+     */
+    void quit() {
+        hurry();
+        thread.quit();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compares the fingerprint of the screen with the one from the previous run, scanning the screen once they match.
+     */
+    private final class StableScreenScan implements Runnable {
+
+        private final int trainerLevel;
+        private int retries = STABLE_RETRIES;
+        private String lastFingerprint;
+
+        private StableScreenScan(int trainerLevel) {
+            this.trainerLevel = trainerLevel;
+        }
+
+        @Override
+        public void run() {
+            //hurry may have raised the priority for a previous scan.
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            ImageSource frame = screen.grabBackgroundScreenImage();
+            if (frame == null) {
+                return;
+            }
+            String fingerprint = ocr.getScanFingerprint(frame, trainerLevel);
+            if (fingerprint.equals(lastFingerprint)) {
+                ocr.scanPokemon(frame, trainerLevel);
+            } else if (retries-- > 0) {
+                lastFingerprint = fingerprint;
+                handler.postDelayed(this, STABLE_DELAY_MS);
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.kamron.pogoiv;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.googlecode.tesseract.android.TessBaseAPI;
+import com.kamron.pogoiv.ocr.ImageUtil;
+import com.kamron.pogoiv.ocr.IntArrayImageSource;
+import com.kamron.pogoiv.ocr.RecognizerProfile;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+import timber.log.Timber;
+
+/**
+ * Tesseract instances shared by the OCR of the service and the batch scanner. Starting tesseract means extracting
+ * the traineddata on first run and loading it, which takes long enough to be felt on the first scan, so it's done in
+ * the background as soon as the app starts, together with a recognition on a tiny image to page the traineddata in.
+ * Instances are set up for one RecognizerProfile each, and never reconfigured. They're given back once not needed
+ * anymore, and a warm one of each profile is kept for the next user.
+ * <p/>
+ * A warm-up which failed, for example because the storage was full, is tried again by the next user of the pool. The
+ * bookkeeping is done by an EnginePool.
+ */
+final class TesseractPool {
+
+    private static final int MAX_IDLE = 1;
+
+    private static TesseractPool instance;
+
+    private final Executor mainThread;
+    private final EnginePool<TessBaseAPI> engines;
+
+    private TesseractPool(final Context context) {
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        this.mainThread = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    command.run();
+                } else {
+                    mainHandler.post(command);
+                }
+            }
+        };
+        this.engines = new EnginePool<>(new EnginePool.Factory<TessBaseAPI>() {
+            @Override
+            public String prepare() {
+                return extractData(context);
+            }
+
+            @Override
+            public TessBaseAPI create(String dataPath, RecognizerProfile profile) {
+                return OcrHelper.createTesseract(dataPath, profile);
+            }
+
+            @Override
+            public void warmUp(TessBaseAPI tesseract) {
+                recognizeBlankImage(tesseract);
+            }
+
+            @Override
+            public void clear(TessBaseAPI tesseract) {
+                tesseract.clear();
+            }
+
+            @Override
+            public void end(TessBaseAPI tesseract) {
+                tesseract.end();
+            }
+        }, MAX_IDLE);
+    }
+
+    /**
+     * Get the pool, starting to warm it up in the background the first time.
+     *
+     * @param context Used to find and extract the tesseract data.
+     * @return The pool.
+     */
+    static synchronized TesseractPool getInstance(Context context) {
+        if (instance == null) {
+            instance = new TesseractPool(context.getApplicationContext());
+            instance.getReady();
+        }
+        return instance;
+    }
+
+    /**
+     * Copy the tesseract data out of the assets, unless the copy of a previous start is complete and comes from this
+     * version of the app.
+     *
+     * @return The path tesseract instances load their data from.
+     */
+    private static String extractData(Context context) {
+        File externalFilesDir = context.getExternalFilesDir(null);
+        if (externalFilesDir == null) {
+            externalFilesDir = context.getFilesDir();
+        }
+        String extdir = externalFilesDir.toString();
+        if (!CopyUtils.extractAssetFolder(context.getAssets(), "tessdata", extdir + "/tessdata",
+                BuildConfig.VERSION_CODE)) {
+            //Tesseract still gets whatever could be copied; the extraction is tried again on the next start.
+            Timber.e("Could not extract the tesseract data");
+        }
+        return extdir;
+    }
+
+    private static void recognizeBlankImage(TessBaseAPI tesseract) {
+        int[] blank = new int[32 * 16];
+        Arrays.fill(blank, ImageUtil.WHITE);
+        OcrHelper.getText(tesseract, new IntArrayImageSource(blank, 32, 16));
+        tesseract.clear();
+    }
+
+    /**
+     * Get a future which completes with the path of the tesseract data once it's extracted and the first instances
+     * are warm. The warm-up is started again if it failed before.
+     */
+    ListenableFuture<String> getReady() {
+        return engines.getReady();
+    }
+
+    /**
+     * Call back on the main thread once the pool is ready, so the main thread never waits for the warm-up in acquire.
+     * The callback runs right away if the pool is ready and this is called from the main thread.
+     *
+     * @param callback Called with the path of the tesseract data, or with why the warm-up failed.
+     */
+    void whenReady(FutureCallback<String> callback) {
+        Futures.addCallback(getReady(), callback, mainThread);
+    }
+
+    /**
+     * Get a tesseract instance set up for a profile as by OcrHelper.createTesseract, waiting for the warm-up if
+     * needed, so the main thread should only call this once whenReady called back. The instance must be given back
+     * with release, and mustn't be reconfigured.
+     *
+     * @param profile The kind of field the instance will read.
+     * @return A warm instance if there is one, a new one otherwise.
+     */
+    TessBaseAPI acquire(RecognizerProfile profile) {
+        return engines.acquire(profile);
+    }
+
+    /**
+     * Give back an instance from acquire. It's kept for the next user if the pool has room, ended otherwise.
+     *
+     * @param profile   The profile the instance was acquired for.
+     * @param tesseract The instance, which mustn't be used anymore by the caller.
+     */
+    void release(RecognizerProfile profile, TessBaseAPI tesseract) {
+        engines.release(profile, tesseract);
+    }
+
+    /**
+     * End the idle instances to give their memory back. The instances in use are kept; a later acquire is slower
+     * since it starts a new instance.
+     */
+    void trimIdle() {
+        engines.endIdle();
+    }
+}
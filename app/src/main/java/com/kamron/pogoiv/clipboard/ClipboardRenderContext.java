@@ -0,0 +1,158 @@
+package com.kamron.pogoiv.clipboard;
+
+import android.support.annotation.Nullable;
+
+import com.kamron.pogoiv.logic.CPRange;
+import com.kamron.pogoiv.logic.IVCombination;
+import com.kamron.pogoiv.logic.IVScanResult;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.Pokemon;
+
+/**
+ * The values shared by the tokens of a clipboard render. Values that several tokens need, like the last evolution or
+ * the CP at level 40, are computed the first time a token asks for them and reused by the other tokens of the same
+ * scan result. Index 0 of the per-evolution caches is the scanned pokemon, index 1 its last evolution.
+ */
+public final class ClipboardRenderContext {
+
+    private static final double MAX_LEVEL = 40;
+
+    private IVScanResult ivScanResult;
+    private PokeInfoCalculator pokeInfoCalculator;
+
+    private boolean extremesComputed;
+    private IVCombination lowestCombination;
+    private IVCombination highestCombination;
+    private IVCombination lowIVs;
+    private IVCombination highIVs;
+
+    private final Pokemon[] pokemon = new Pokemon[2];
+    private final CPRange[] combinationCpRanges = new CPRange[2];
+    private final CPRange[] ivCpRanges = new CPRange[2];
+
+    /**
+     * Create a context for a single scan result.
+     *
+     * @param ivScanResult       The scan result the tokens render.
+     * @param pokeInfoCalculator The calculator the tokens compute values with.
+     */
+    public ClipboardRenderContext(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        reset(ivScanResult, pokeInfoCalculator);
+    }
+
+    /**
+     * Forget the cached values and start over with another scan result, so a render plan can reuse one context.
+     *
+     * @param ivScanResult       The scan result the tokens render.
+     * @param pokeInfoCalculator The calculator the tokens compute values with.
+     */
+    void reset(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        this.ivScanResult = ivScanResult;
+        this.pokeInfoCalculator = pokeInfoCalculator;
+        extremesComputed = false;
+        lowestCombination = null;
+        highestCombination = null;
+        lowIVs = null;
+        highIVs = null;
+        for (int i = 0; i < 2; i++) {
+            pokemon[i] = null;
+            combinationCpRanges[i] = null;
+            ivCpRanges[i] = null;
+        }
+    }
+
+    public IVScanResult getIvScanResult() {
+        return ivScanResult;
+    }
+
+    public PokeInfoCalculator getPokeInfoCalculator() {
+        return pokeInfoCalculator;
+    }
+
+    /**
+     * Get the scanned pokemon or the last pokemon of its evolution line.
+     *
+     * @param maxEv true for the last evolution.
+     * @return The pokemon a token should describe.
+     */
+    public Pokemon getPokemon(boolean maxEv) {
+        int i = maxEv ? 1 : 0;
+        if (pokemon[i] == null) {
+            pokemon[i] = maxEv ? pokeInfoCalculator.getLastEvolution(ivScanResult.pokemon) : ivScanResult.pokemon;
+        }
+        return pokemon[i];
+    }
+
+    /**
+     * Same as IVScanResult.getLowestIVCombination(), found in the same pass as the highest one.
+     */
+    public @Nullable IVCombination getLowestIVCombination() {
+        computeExtremes();
+        return lowestCombination;
+    }
+
+    /**
+     * Same as IVScanResult.getHighestIVCombination(), found in the same pass as the lowest one.
+     */
+    public @Nullable IVCombination getHighestIVCombination() {
+        computeExtremes();
+        return highestCombination;
+    }
+
+    /**
+     * Get the CP range at level 40 between the lowest and the highest possible IV combination.
+     *
+     * @param maxEv true for the last evolution.
+     */
+    public CPRange getCombinationCpRangeAtMaxLevel(boolean maxEv) {
+        int i = maxEv ? 1 : 0;
+        if (combinationCpRanges[i] == null) {
+            combinationCpRanges[i] = pokeInfoCalculator.getCpRangeAtLevel(getPokemon(maxEv),
+                    getLowestIVCombination(), getHighestIVCombination(), MAX_LEVEL);
+        }
+        return combinationCpRanges[i];
+    }
+
+    /**
+     * Get the CP range at level 40 between the lowest and the highest value of each IV stat.
+     *
+     * @param maxEv true for the last evolution.
+     */
+    public CPRange getIVCpRangeAtMaxLevel(boolean maxEv) {
+        int i = maxEv ? 1 : 0;
+        if (ivCpRanges[i] == null) {
+            if (lowIVs == null) {
+                lowIVs = ivScanResult.getCombinationLowIVs();
+                highIVs = ivScanResult.getCombinationHighIVs();
+            }
+            ivCpRanges[i] = pokeInfoCalculator.getCpRangeAtLevel(getPokemon(maxEv), lowIVs, highIVs, MAX_LEVEL);
+        }
+        return ivCpRanges[i];
+    }
+
+    /**
+     * Get the CP at level 40 of a pokemon with perfect IVs.
+     *
+     * @param maxEv true for the last evolution.
+     */
+    public int getPerfectCpAtMaxLevel(boolean maxEv) {
+        return pokeInfoCalculator.getPerfectCpAtLevel(getPokemon(maxEv), MAX_LEVEL);
+    }
+
+    private void computeExtremes() {
+        if (extremesComputed) {
+            return;
+        }
+        extremesComputed = true;
+        for (IVCombination combination : ivScanResult.iVCombinations) {
+            if (lowestCombination == null
+                    || IVCombination.totalComparator.compare(combination, lowestCombination) < 0) {
+                lowestCombination = combination;
+            }
+            if (highestCombination == null
+                    || IVCombination.totalComparator.compare(combination, highestCombination) > 0) {
+                highestCombination = combination;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.kamron.pogoiv.clipboard;
+
+import com.kamron.pogoiv.logic.IVScanResult;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+
+import java.util.List;
+
+/**
+ * A list of clipboard tokens compiled for rendering. The tokens write into one builder sized for their maximum output,
+ * and share one ClipboardRenderContext so values used by several tokens are computed once per scan result.
+ */
+public final class ClipboardRenderPlan {
+
+    private final ClipboardToken[] tokens;
+    private final StringBuilder builder;
+    private ClipboardRenderContext context;
+
+    /**
+     * Compile a token list into a plan. Later changes to the list don't affect the plan.
+     *
+     * @param tokens The tokens to render, in order.
+     */
+    public ClipboardRenderPlan(List<ClipboardToken> tokens) {
+        this.tokens = tokens.toArray(new ClipboardToken[tokens.size()]);
+        int capacity = 0;
+        for (ClipboardToken token : this.tokens) {
+            capacity += token.getMaxLength();
+        }
+        builder = new StringBuilder(Math.max(capacity, 16));
+    }
+
+    public boolean isEmpty() {
+        return tokens.length == 0;
+    }
+
+    /**
+     * Render the tokens for a scan result.
+     *
+     * @param ivScanResult       Used by some tokens to calculate information.
+     * @param pokeInfoCalculator Used by some tokens to calculate information.
+     * @return A string with all the tokens returned result on each other
+     */
+    public synchronized String render(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        if (context == null) {
+            context = new ClipboardRenderContext(ivScanResult, pokeInfoCalculator);
+        } else {
+            context.reset(ivScanResult, pokeInfoCalculator);
+        }
+        builder.setLength(0);
+        for (ClipboardToken token : tokens) {
+            token.appendValue(builder, context);
+        }
+        // Don't keep the scan result alive until the next render.
+        context.reset(null, null);
+        return builder.toString();
+    }
+}
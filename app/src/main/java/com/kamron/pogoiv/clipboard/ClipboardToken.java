@@ -6,8 +6,6 @@ import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
 import com.kamron.pogoiv.logic.Pokemon;
 
-import java.util.ArrayList;
-
 /**
  * Created by Johan on 2016-09-24.
  * An interface which lists the methods required for tokens that users can use to build custom clipboard snippets on
@@ -47,6 +45,31 @@ public abstract class ClipboardToken {
      */
     public abstract String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator);
 
+    /**
+     * Append the result as interpreted by this clipboardtoken. Tokens which need values shared with other tokens, like
+     * the last evolution or the CP at level 40, should override this and take them from the render context; the
+     * default falls back on getValue.
+     *
+     * @param out     Where to write the output of the token.
+     * @param context The scan result being rendered, and the values already computed for it.
+     */
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        out.append(getValue(context.getIvScanResult(), context.getPokeInfoCalculator()));
+    }
+
+    /**
+     * Implementation of getValue for tokens which override appendValue.
+     *
+     * @param ivScanResult       Information that can be used to calculate the output for the token.
+     * @param pokeInfoCalculator Information that can be used to calculate the output for the token.
+     * @return The output of appendValue.
+     */
+    protected String renderValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        StringBuilder out = new StringBuilder(getMaxLength());
+        appendValue(out, new ClipboardRenderContext(ivScanResult, pokeInfoCalculator));
+        return out.toString();
+    }
+
     /**
      * Get a String which represents an example of normal output from this token. For example if the token returns a
      * random number between 0 and 150, "133" would be a good normal output.
@@ -77,18 +100,7 @@ public abstract class ClipboardToken {
      * @return The last pokemon in an evolution line.
      */
     private Pokemon getLastEv(Pokemon poke, PokeInfoCalculator pokeInfoCalculator) {
-        Pokemon lastEv;
-        //If-else below exists to manage scenario where pokemon has multiple evolution possibilities, so for example
-        //If you scan a vaporeon, it has no evolutions, so there's no need to go to the bottom of the evolution chain
-        // and find jolteon.. or whatever eeveelution is last.
-        if (poke.evolutions.size() != 0) {
-            ArrayList<Pokemon> evLine = pokeInfoCalculator.getEvolutionLine(poke);
-            lastEv = evLine.get(evLine.size() - 1);
-        } else {
-            lastEv = poke;
-        }
-
-        return lastEv;
+        return pokeInfoCalculator.getLastEvolution(poke);
     }
 
     /**
@@ -103,6 +115,16 @@ public abstract class ClipboardToken {
         return maxEv ? getLastEv(poke, pic) : poke;
     }
 
+    /**
+     * Same as getRightPokemon(Pokemon, PokeInfoCalculator), looking up the last evolution only once per render.
+     *
+     * @param context The render context of the scan result.
+     * @return Either the scanned pokemon, or the last evolution, depending on the token setting.
+     */
+    public Pokemon getRightPokemon(ClipboardRenderContext context) {
+        return context.getPokemon(maxEv);
+    }
+
     /**
      * Get what the short name of the token is, for example "Name".
      *
@@ -20,6 +20,9 @@ import com.kamron.pogoiv.clipboard.tokens.UnicodeToken;
 import com.kamron.pogoiv.clipboard.tokens.MixedUnicodeToken;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by Johan on 2016-09-24.
@@ -31,6 +34,30 @@ import java.util.ArrayList;
 
 public class ClipboardTokenCollection {
 
+    /**
+     * The sample tokens by their string representation without the leading ".". Tokens are stateless, so the same
+     * instances are shared by every parsed clipboard setting.
+     */
+    private static final Map<String, ClipboardToken> REGISTRY;
+
+    static {
+        HashMap<String, ClipboardToken> registry = new HashMap<>();
+        for (ClipboardToken token : getSamples()) {
+            registry.put(token.getStringRepresentation().substring(1), token);
+        }
+        REGISTRY = Collections.unmodifiableMap(registry);
+    }
+
+    /**
+     * Find the sample token saved with a string representation.
+     *
+     * @param representation The string representation of the token, without the leading ".".
+     * @return The token, or null if no sample token has that representation.
+     */
+    public static ClipboardToken getToken(String representation) {
+        return REGISTRY.get(representation);
+    }
+
     public static ArrayList<ClipboardToken> getSamples() {
         ArrayList<ClipboardToken> tokens = new ArrayList<>();
 
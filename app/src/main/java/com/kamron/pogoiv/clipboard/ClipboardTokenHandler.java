@@ -1,6 +1,7 @@
 package com.kamron.pogoiv.clipboard;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 
 import com.kamron.pogoiv.GoIVSettings;
 import com.kamron.pogoiv.R;
@@ -18,11 +19,15 @@ import java.util.List;
  * changes.
  */
 
-public class ClipboardTokenHandler {
+public class ClipboardTokenHandler implements SharedPreferences.OnSharedPreferenceChangeListener {
+
+    private static final String SEPARATOR_CLASS_NAME = SeparatorToken.class.getSimpleName();
 
     private ArrayList<ClipboardToken> tokens = new ArrayList<>();
     private ArrayList<ClipboardToken> tokensSingle = new ArrayList<>(); //user setting for single results
     private Context context;
+    private ClipboardRenderPlan plan;
+    private ClipboardRenderPlan planSingle;
 
     /**
      * Create a new clipboardTokenHandler that can edit and read ClipboardToken information.
@@ -30,12 +35,40 @@ public class ClipboardTokenHandler {
      * @param context Used to get application user settings.
      */
     public ClipboardTokenHandler(Context context) {
-
-        String storedSetting = GoIVSettings.getInstance(context).getClipboardPreference();
-        String storedSettingSingle = GoIVSettings.getInstance(context).getClipboardSinglePreference();
-        tokens = initializeTokensFromSettings(storedSetting);
-        tokensSingle = initializeTokensFromSettings(storedSettingSingle);
         this.context = context;
+        reloadTokens(true);
+        reloadTokens(false);
+    }
+
+    /**
+     * Parse the token list for single or multiple results again from the user settings.
+     *
+     * @param single true to reload the settings for single IV results, false for general setting.
+     */
+    private void reloadTokens(boolean single) {
+        GoIVSettings settings = GoIVSettings.getInstance(context);
+        if (single) {
+            tokensSingle = initializeTokensFromSettings(settings.getClipboardSinglePreference());
+        } else {
+            tokens = initializeTokensFromSettings(settings.getClipboardPreference());
+        }
+        invalidatePlan(single);
+    }
+
+    /**
+     * Keeps a long-lived handler in sync with the clipboard settings, when registered with
+     * GoIVSettings.registerOnSharedPreferenceChangeListener. The token lists are parsed again only when the clipboard
+     * settings change.
+     */
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (GoIVSettings.GOIV_CLIPBOARDSETTINGS.equals(key)) {
+            reloadTokens(false);
+            // The single setting defaults to the general one.
+            reloadTokens(true);
+        } else if (GoIVSettings.GOIV_CLIPBOARDSINGLESETTINGS.equals(key)) {
+            reloadTokens(true);
+        }
     }
 
 
@@ -58,31 +91,21 @@ public class ClipboardTokenHandler {
         ArrayList<ClipboardToken> saveTo = new ArrayList<>();
         String[] tokenRepresentationArray = storedSetting.split("\\.");
 
-        ArrayList<ClipboardToken> exampleTokens = ClipboardTokenCollection.getSamples();
-
-
-        String representation;
-        for (int i = 0; i < tokenRepresentationArray.length; i++) { // for all saved tokens
-            representation = tokenRepresentationArray[i];
-
+        for (String representation : tokenRepresentationArray) { // for all saved tokens
             //Check for a custom user added seperator
-            String seperatorClassName = new SeparatorToken("").getClass().getSimpleName();
-            if (representation.contains(seperatorClassName)) {
-                saveTo.add(new SeparatorToken(representation.substring(seperatorClassName.length())));
+            if (representation.startsWith(SEPARATOR_CLASS_NAME)) {
+                saveTo.add(new SeparatorToken(representation.substring(SEPARATOR_CLASS_NAME.length())));
                 continue;
             }
 
-            for (ClipboardToken tokenExample : exampleTokens) {
-                //compare it to library of known tokens
-                //substring is used because the . will be removed in the split
-                String tokenExampleString = tokenExample.getStringRepresentation().substring(1);
-                if (tokenExampleString.equals(representation)) { //when we found what kind of token was saved
-                    saveTo.add(tokenExample);       //add it to the list.
-                    //Having duplicate references to the same token will never be a problem, as the user
-                    //will simply get duplicate output, which is what's expected.
-                }
+            //compare it to library of known tokens
+            //the . is removed in the split, which is how the registry stores representations
+            ClipboardToken token = ClipboardTokenCollection.getToken(representation);
+            if (token != null) {
+                //Having duplicate references to the same token will never be a problem, as the user
+                //will simply get duplicate output, which is what's expected.
+                saveTo.add(token);
             }
-
         }
         return saveTo;
     }
@@ -109,6 +132,7 @@ public class ClipboardTokenHandler {
      */
     public void removeToken(int i, boolean single) {
         getCorrectTokenList(single).remove(i);
+        invalidatePlan(single);
         saveTokenChanges();
     }
 
@@ -122,12 +146,12 @@ public class ClipboardTokenHandler {
         if (getCorrectTokenList(single).size() == 0) {
             return context.getString(R.string.no_clipboard_preview);
         }
-        String returner = "";
+        StringBuilder returner = new StringBuilder();
 
         for (ClipboardToken token : getCorrectTokenList(single)) {
-            returner += token.getPreview();
+            returner.append(token.getPreview());
         }
-        return returner;
+        return returner.toString();
     }
 
     /**
@@ -153,6 +177,7 @@ public class ClipboardTokenHandler {
      */
     public void addToken(ClipboardToken token, boolean single) {
         getCorrectTokenList(single).add(token);
+        invalidatePlan(single);
         saveTokenChanges();
     }
 
@@ -163,6 +188,7 @@ public class ClipboardTokenHandler {
      */
     public void clearTokens(boolean single) {
         getCorrectTokenList(single).clear();
+        invalidatePlan(single);
         saveTokenChanges();
     }
 
@@ -175,11 +201,35 @@ public class ClipboardTokenHandler {
      * @return A string with all the tokens returned result on each other
      */
     public String getResults(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator, boolean single) {
-        String returner = "";
-        for (ClipboardToken token : getCorrectTokenList(single)) {
-            returner += token.getValue(ivScanResult, pokeInfoCalculator);
+        return getRenderPlan(single).render(ivScanResult, pokeInfoCalculator);
+    }
+
+    /**
+     * Get the token list for single or multiple results compiled for rendering. The plan is compiled once and kept
+     * until the token list changes.
+     *
+     * @param single true to work with the settings for single IV results, false for general setting.
+     * @return The render plan of the token list.
+     */
+    private ClipboardRenderPlan getRenderPlan(boolean single) {
+        if (single) {
+            if (planSingle == null) {
+                planSingle = new ClipboardRenderPlan(tokensSingle);
+            }
+            return planSingle;
+        }
+        if (plan == null) {
+            plan = new ClipboardRenderPlan(tokens);
+        }
+        return plan;
+    }
+
+    private void invalidatePlan(boolean single) {
+        if (single) {
+            planSingle = null;
+        } else {
+            plan = null;
         }
-        return returner;
     }
 
     /**
@@ -2,6 +2,7 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
@@ -45,34 +46,31 @@ public class BaseStatToken extends ClipboardToken {
 
     @Override
     public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
-        Pokemon poke = getRightPokemon(ivScanResult.pokemon, pokeInfoCalculator);
-        int bAtt = poke.baseAttack;
-        int bDef = poke.baseDefense;
-        int bSta = poke.baseStamina;
-        int ivAtt = bAtt + ivScanResult.lowAttack;
-        int ivDef = bDef + ivScanResult.lowDefense;
-        int ivSta = bSta + ivScanResult.lowStamina;
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
 
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        Pokemon poke = getRightPokemon(context);
+        IVScanResult ivScanResult = context.getIvScanResult();
+        int att = poke.baseAttack;
+        int def = poke.baseDefense;
+        int sta = poke.baseStamina;
         if (includeIV) {
-            if (mode == 0) {
-                return ivAtt + " " + ivDef + " " + ivSta;
-            } else if (mode == 1) {
-                return ivAtt + "";
-            } else if (mode == 2) {
-                return ivDef + "";
-            }
-            return ivSta + "";
-        } else {
-            if (mode == 0) {
-                return bAtt + " " + bDef + " " + bSta;
-            } else if (mode == 1) {
-                return bAtt + "";
-            } else if (mode == 2) {
-                return bDef + "";
-            }
-            return bSta + "";
+            att += ivScanResult.lowAttack;
+            def += ivScanResult.lowDefense;
+            sta += ivScanResult.lowStamina;
         }
 
+        if (mode == 0) {
+            out.append(att).append(' ').append(def).append(' ').append(sta);
+        } else if (mode == 1) {
+            out.append(att);
+        } else if (mode == 2) {
+            out.append(def);
+        } else {
+            out.append(sta);
+        }
     }
 
     @Override
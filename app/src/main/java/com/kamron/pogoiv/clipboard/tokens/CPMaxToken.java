@@ -2,11 +2,10 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
-import com.kamron.pogoiv.logic.CPRange;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
-import com.kamron.pogoiv.logic.Pokemon;
 
 /**
  * Created by johan on 2017-04-12.
@@ -30,14 +29,11 @@ public class CPMaxToken extends ClipboardToken {
     }
 
     @Override public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
-        //pokemon low high level
-        Pokemon poke = getRightPokemon(ivScanResult.pokemon, pokeInfoCalculator);
-        CPRange r = pokeInfoCalculator.getCpRangeAtLevel(poke, ivScanResult.getLowestIVCombination(),
-                ivScanResult.getHighestIVCombination(), 40);
-
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
 
-        String val = String.valueOf(r.getAvg());
-        return val;
+    @Override public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        out.append(context.getCombinationCpRangeAtMaxLevel(maxEv).getAvg());
     }
 
     @Override public String getPreview() {
@@ -2,10 +2,10 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
-import com.kamron.pogoiv.logic.Pokemon;
 
 /**
  * Created by Johan on 2016-09-24.
@@ -14,6 +14,7 @@ import com.kamron.pogoiv.logic.Pokemon;
 
 public class CpTierToken extends ClipboardToken {
 
+    private static final TokenTierLogic TIER_LOGIC = new TokenTierLogic();
 
     /**
      * Create a clipboard token.
@@ -31,13 +32,13 @@ public class CpTierToken extends ClipboardToken {
     }
 
     @Override
-    public String getValue(IVScanResult ivs, PokeInfoCalculator pokeInfoCalculator) {
-        TokenTierLogic ttl = new TokenTierLogic();
-        Pokemon poke = getRightPokemon(ivs.pokemon, pokeInfoCalculator);
-        int cp = pokeInfoCalculator.getCpRangeAtLevel(poke,
-                ivs.getCombinationLowIVs(), ivs.getCombinationHighIVs(), 40).getAvg();
+    public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
 
-        return ttl.getRating(cp);
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        out.append(TIER_LOGIC.getRating(context.getIVCpRangeAtMaxLevel(maxEv).getAvg()));
     }
 
     @Override
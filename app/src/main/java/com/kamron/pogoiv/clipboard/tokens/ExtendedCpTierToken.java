@@ -2,14 +2,13 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
 import com.kamron.pogoiv.logic.Pokemon;
 
-import java.util.Deque;
-import java.util.LinkedList;
 import java.util.Objects;
 
 /**
@@ -41,27 +40,30 @@ public class ExtendedCpTierToken extends ClipboardToken {
     }
 
     private static double computeMaxEvolvedCP(Pokemon pkm, IVCombination iv, PokeInfoCalculator pokeInfoCalculator) {
-        final Deque<Pokemon> toVisit = new LinkedList<>();
-        toVisit.push(Objects.requireNonNull(pkm));
         double max = Double.NEGATIVE_INFINITY;
-        while (!toVisit.isEmpty()) {
-            final Pokemon pokemon = toVisit.pop();
+        for (Pokemon pokemon : pokeInfoCalculator.getEvolutionsFrom(Objects.requireNonNull(pkm))) {
             max = Math.max(max, computeBestCP(pokemon, iv, pokeInfoCalculator));
-            toVisit.addAll(pokemon.evolutions);
         }
         return max;
     }
 
     @Override
     public String getValue(IVScanResult ivs, PokeInfoCalculator pokeInfoCalculator) {
-        final IVCombination bestCombination = Objects.requireNonNull(ivs).getHighestIVCombination();
+        return renderValue(Objects.requireNonNull(ivs), pokeInfoCalculator);
+    }
+
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        final IVCombination bestCombination = context.getHighestIVCombination();
         if (bestCombination == null) {
-            return "??";
+            out.append("??");
+            return;
         }
+        final PokeInfoCalculator pokeInfoCalculator = context.getPokeInfoCalculator();
         final double cp = maxEv
-                ? computeMaxEvolvedCP(ivs.pokemon, bestCombination, pokeInfoCalculator)
-                : computeBestCP(ivs.pokemon, bestCombination, pokeInfoCalculator);
-        return ExtendedTokenTierLogic.getRating(cp, pokeInfoCalculator);
+                ? computeMaxEvolvedCP(context.getIvScanResult().pokemon, bestCombination, pokeInfoCalculator)
+                : computeBestCP(context.getIvScanResult().pokemon, bestCombination, pokeInfoCalculator);
+        out.append(ExtendedTokenTierLogic.getRating(cp, pokeInfoCalculator));
     }
 
     @Override
@@ -1,16 +1,11 @@
 package com.kamron.pogoiv.clipboard.tokens;
 
-import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
-import com.kamron.pogoiv.logic.Pokemon;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Semaphore;
-
-import static java.lang.Math.max;
 
 /**
  * Created by Danilo Pianini.
@@ -19,11 +14,7 @@ import static java.lang.Math.max;
 
 public final class ExtendedTokenTierLogic {
 
-    private static final IVCombination MAXIVCOMB = new IVCombination(15, 15, 15);
-    private static final int MAXLEVEL = 40;
-    private static final Semaphore MUTEX = new Semaphore(1);
     private static final List<String> RATINGS;
-    private static double MAX_IV;
 
     static {
         final char[] alphabet = "abcdefghijklmnopqrstuvwxyz"
@@ -45,17 +36,12 @@ public final class ExtendedTokenTierLogic {
      * Get a string representation of a pokemon rating, for example "A" or "B+".
      *
      * @param combatPower the general combatPower to translate to a tier string.
+     * @param calc        the calculator holding the highest CP of the pokedex, which is rated ZZ.
      * @return A string S,A,B,C,D which might have a plus or minus after.
      */
     public static String getRating(final double combatPower, final PokeInfoCalculator calc) {
-        MUTEX.acquireUninterruptibly();
-        if (MAX_IV == 0) {
-            for (final Pokemon pokemon: calc.getPokedex()) {
-                MAX_IV = max(MAX_IV, calc.getCpRangeAtLevel(pokemon, MAXIVCOMB, MAXIVCOMB, MAXLEVEL).getFloatingAvg());
-            }
-        }
-        MUTEX.release();
-        final int ratingIndex = (int) Math.round(Math.max(combatPower, 1) * (RATINGS.size() - 1) / MAX_IV);
+        final double maxCp = calc.getHighestPerfectMaxLevelCp();
+        final int ratingIndex = (int) Math.round(Math.max(combatPower, 1) * (RATINGS.size() - 1) / maxCp);
         return RATINGS.get(ratingIndex);
     }
 }
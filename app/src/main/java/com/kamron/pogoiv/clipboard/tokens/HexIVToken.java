@@ -2,6 +2,7 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
@@ -27,15 +28,17 @@ public class HexIVToken extends ClipboardToken {
 
     @Override
     public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
-        IVCombination lowestIVCombination = ivScanResult.getLowestIVCombination();
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
+
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        IVCombination lowestIVCombination = context.getLowestIVCombination();
         if (lowestIVCombination == null) {
-            return "";
+            return;
         }
-        int att = lowestIVCombination.att;
-        int def = lowestIVCombination.def;
-        int sta = lowestIVCombination.sta;
-
-        return hex[att] + hex[def] + hex[sta];
+        out.append(hex[lowestIVCombination.att]).append(hex[lowestIVCombination.def])
+                .append(hex[lowestIVCombination.sta]);
     }
 
     @Override
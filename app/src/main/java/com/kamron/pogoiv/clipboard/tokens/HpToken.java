@@ -2,10 +2,10 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
-import com.kamron.pogoiv.logic.Pokemon;
 
 /**
  * Created by Johan on 2016-09-26.
@@ -33,10 +33,14 @@ public class HpToken extends ClipboardToken {
 
     @Override
     public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
-        Pokemon poke = getRightPokemon(ivScanResult.pokemon, pokeInfoCalculator);
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
+
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        IVScanResult ivScanResult = context.getIvScanResult();
         double level = currentLevel ? ivScanResult.estimatedPokemonLevel : 40;
-        int hp = pokeInfoCalculator.getHPAtLevel(ivScanResult, level, poke);
-        return String.valueOf(hp);
+        out.append(context.getPokeInfoCalculator().getHPAtLevel(ivScanResult, level, getRightPokemon(context)));
     }
 
     @Override
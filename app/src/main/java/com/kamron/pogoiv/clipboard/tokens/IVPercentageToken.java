@@ -2,6 +2,7 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
@@ -28,14 +29,23 @@ public class IVPercentageToken extends ClipboardToken {
 
     @Override
     public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
+
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
         if (mode == IVPercentageTokenMode.MIN) {
-            IVCombination lowestIVCombination = ivScanResult.getLowestIVCombination();
-            return lowestIVCombination != null ? String.valueOf(lowestIVCombination.percentPerfect) : "";
+            IVCombination lowestIVCombination = context.getLowestIVCombination();
+            if (lowestIVCombination != null) {
+                out.append(lowestIVCombination.percentPerfect);
+            }
         } else if (mode == IVPercentageTokenMode.AVG) {
-            return String.valueOf(ivScanResult.getAveragePercent());
+            out.append(context.getIvScanResult().getAveragePercent());
         } else if (mode == IVPercentageTokenMode.MAX) {
-            IVCombination highestIVCombination = ivScanResult.getHighestIVCombination();
-            return highestIVCombination != null ? String.valueOf(highestIVCombination.percentPerfect) : "";
+            IVCombination highestIVCombination = context.getHighestIVCombination();
+            if (highestIVCombination != null) {
+                out.append(highestIVCombination.percentPerfect);
+            }
         } else {
             throw new IllegalArgumentException();
         }
@@ -2,12 +2,12 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
 
-import java.util.Locale;
 
 /**
  * Created by Danilo Pianini.
@@ -35,12 +35,24 @@ public class IVSum extends ClipboardToken {
     }
 
     @Override
-    public String getValue(IVScanResult ivs, PokeInfoCalculator pokeInfoCalculator) {
-        final IVCombination combination = best ? ivs.getHighestIVCombination() : ivs.getLowestIVCombination();
+    public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
+
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        final IVCombination combination = best
+                ? context.getHighestIVCombination()
+                : context.getLowestIVCombination();
         if (combination == null) {
-            return "??";
+            out.append("??");
+            return;
+        }
+        int total = combination.getTotal();
+        if (total < 10) {
+            out.append('0');
         }
-        return String.format(Locale.ENGLISH, "%02d", combination.getTotal());
+        out.append(total);
     }
 
     @Override
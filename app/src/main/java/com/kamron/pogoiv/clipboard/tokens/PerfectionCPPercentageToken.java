@@ -2,11 +2,10 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
-import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
 import com.kamron.pogoiv.logic.PokeInfoCalculator;
-import com.kamron.pogoiv.logic.Pokemon;
 
 /**
  * Created by Johan on 2016-09-25.
@@ -30,14 +29,15 @@ public class PerfectionCPPercentageToken extends ClipboardToken {
     }
 
     @Override
-    public String getValue(IVScanResult isr, PokeInfoCalculator pokeInfoCalculator) {
-        Pokemon poke = getRightPokemon(isr.pokemon, pokeInfoCalculator);
-        double perfectIvCp = pokeInfoCalculator.getCpRangeAtLevel(poke,
-                IVCombination.MAX, IVCombination.MAX, 40).getFloatingAvg();
-        double thisCP = pokeInfoCalculator.getCpRangeAtLevel(poke,
-                isr.getCombinationLowIVs(), isr.getCombinationHighIVs(), 40).getFloatingAvg();
-        long roundedPerfection = Math.round(thisCP * 100.0 / perfectIvCp);
-        return String.valueOf(roundedPerfection);
+    public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
+
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        double perfectIvCp = context.getPerfectCpAtMaxLevel(maxEv);
+        double thisCP = context.getIVCpRangeAtMaxLevel(maxEv).getFloatingAvg();
+        out.append(Math.round(thisCP * 100.0 / perfectIvCp));
     }
 
     @Override
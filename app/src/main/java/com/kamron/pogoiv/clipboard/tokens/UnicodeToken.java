@@ -2,6 +2,7 @@ package com.kamron.pogoiv.clipboard.tokens;
 
 import android.content.Context;
 
+import com.kamron.pogoiv.clipboard.ClipboardRenderContext;
 import com.kamron.pogoiv.clipboard.ClipboardToken;
 import com.kamron.pogoiv.logic.IVCombination;
 import com.kamron.pogoiv.logic.IVScanResult;
@@ -29,16 +30,19 @@ public class UnicodeToken extends ClipboardToken {
 
     @Override
     public String getValue(IVScanResult ivScanResult, PokeInfoCalculator pokeInfoCalculator) {
-        IVCombination lowestIVCombination = ivScanResult.getLowestIVCombination();
+        return renderValue(ivScanResult, pokeInfoCalculator);
+    }
+
+    @Override
+    public void appendValue(StringBuilder out, ClipboardRenderContext context) {
+        IVCombination lowestIVCombination = context.getLowestIVCombination();
         if (lowestIVCombination == null) {
-            return "";
+            return;
         }
-        int att = lowestIVCombination.att;
-        int def = lowestIVCombination.def;
-        int sta = lowestIVCombination.sta;
         String[] toUse = filled ? unicode_0_15filled : unicode_0_15;
 
-        return toUse[att] + toUse[def] + toUse[sta];
+        out.append(toUse[lowestIVCombination.att]).append(toUse[lowestIVCombination.def])
+                .append(toUse[lowestIVCombination.sta]);
     }
 
     @Override
@@ -0,0 +1,142 @@
+package com.kamron.pogoiv.logic;
+
+import com.google.common.base.Optional;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The result of scanning one screenshot of a batch: what the OCR read and the IV range it gives. Rows are formatted
+ * as CSV lines or JSON objects for the batch report.
+ */
+public class BatchScanRow {
+    public static final String CSV_HEADER = "screenshot,pokemon,cp,hp,level,iv_min,iv_avg,iv_max,iv_combinations,"
+            + "error";
+
+    public final int index;
+    public final String screenshot;
+    public final String pokemon;
+    public final Optional<Integer> cp;
+    public final Optional<Integer> hp;
+    public final double level;
+    public final int ivMin;
+    public final int ivAverage;
+    public final int ivMax;
+    public final int ivCombinations;
+    public final String error;
+
+    private BatchScanRow(int index, String screenshot, String pokemon, Optional<Integer> cp, Optional<Integer> hp,
+                         double level, int ivMin, int ivAverage, int ivMax, int ivCombinations, String error) {
+        this.index = index;
+        this.screenshot = screenshot;
+        this.pokemon = pokemon;
+        this.cp = cp;
+        this.hp = hp;
+        this.level = level;
+        this.ivMin = ivMin;
+        this.ivAverage = ivAverage;
+        this.ivMax = ivMax;
+        this.ivCombinations = ivCombinations;
+        this.error = error;
+    }
+
+    /**
+     * Identify the pokemon of a scan and calculate its IVs.
+     *
+     * @param index      The position of the screenshot in the batch.
+     * @param screenshot The name of the screenshot.
+     * @param scan       What the OCR read on the screenshot.
+     * @param corrector  The name corrector to identify the pokemon with.
+     * @param calculator The calculator to find the IV combinations with.
+     * @return The row for the screenshot.
+     */
+    public static BatchScanRow create(int index, String screenshot, ScanResult scan, PokemonNameCorrector corrector,
+                                      PokeInfoCalculator calculator) {
+        if (scan.isFailed()) {
+            return failed(index, screenshot, "No CP and HP found");
+        }
+        Pokemon pokemon = corrector.getPossiblePokemon(scan.getPokemonName(), scan.getCandyName(),
+                scan.getUpgradeCandyCost(), scan.getPokemonType()).pokemon;
+        if (!scan.getPokemonCP().isPresent() || !scan.getPokemonHP().isPresent()) {
+            return new BatchScanRow(index, screenshot, pokemon.toString(), scan.getPokemonCP(), scan.getPokemonHP(),
+                    scan.getEstimatedPokemonLevel(), 0, 0, 0, 0, "CP or HP not found");
+        }
+
+        IVScanResult ivs = calculator.calculateIVPossibilities(pokemon, scan.getEstimatedPokemonLevel(),
+                scan.getPokemonHP().get(), scan.getPokemonCP().get());
+        if (ivs.getCount() == 0) {
+            return new BatchScanRow(index, screenshot, pokemon.toString(), scan.getPokemonCP(), scan.getPokemonHP(),
+                    scan.getEstimatedPokemonLevel(), 0, 0, 0, 0, "No IV combination matches");
+        }
+        return new BatchScanRow(index, screenshot, pokemon.toString(), scan.getPokemonCP(), scan.getPokemonHP(),
+                scan.getEstimatedPokemonLevel(), ivs.getLowestIVCombination().percentPerfect,
+                ivs.getAveragePercent(), ivs.getHighestIVCombination().percentPerfect, ivs.getCount(), "");
+    }
+
+    /**
+     * Create the row of a screenshot which could not be scanned.
+     */
+    public static BatchScanRow failed(int index, String screenshot, String error) {
+        return new BatchScanRow(index, screenshot, "", Optional.<Integer>absent(), Optional.<Integer>absent(), 0, 0,
+                0, 0, 0, error);
+    }
+
+    private boolean hasIVs() {
+        return ivCombinations > 0;
+    }
+
+    public String toCsv() {
+        return csvField(screenshot) + ',' + csvField(pokemon) + ',' + (cp.isPresent() ? cp.get() : "") + ','
+                + (hp.isPresent() ? hp.get() : "") + ','
+                + (level > 0 ? String.valueOf(level) : "") + ','
+                + (hasIVs() ? ivMin + "," + ivAverage + "," + ivMax : ",,") + ',' + ivCombinations + ','
+                + csvField(error);
+    }
+
+    public String toJson() {
+        return "{\"screenshot\": " + jsonString(screenshot)
+                + ", \"pokemon\": " + jsonString(pokemon)
+                + ", \"cp\": " + (cp.isPresent() ? cp.get() : "null")
+                + ", \"hp\": " + (hp.isPresent() ? hp.get() : "null")
+                + ", \"level\": " + (level > 0 ? String.valueOf(level) : "null")
+                + ", \"ivMin\": " + (hasIVs() ? ivMin : "null")
+                + ", \"ivAverage\": " + (hasIVs() ? ivAverage : "null")
+                + ", \"ivMax\": " + (hasIVs() ? ivMax : "null")
+                + ", \"ivCombinations\": " + ivCombinations
+                + ", \"error\": " + (error.isEmpty() ? "null" : jsonString(error)) + "}";
+    }
+
+    /**
+     * Format rows as a JSON array, one row per line.
+     */
+    public static String toJson(List<BatchScanRow> rows) {
+        StringBuilder json = new StringBuilder("[");
+        String separator = "\n";
+        for (BatchScanRow row : rows) {
+            json.append(separator).append("  ").append(row.toJson());
+            separator = ",\n";
+        }
+        return json.append("\n]\n").toString();
+    }
+
+    private static String csvField(String text) {
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private static String jsonString(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
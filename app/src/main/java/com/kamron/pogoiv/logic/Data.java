@@ -1,7 +1,5 @@
 package com.kamron.pogoiv.logic;
 
-import android.graphics.Point;
-
 /**
  * Created by Pascal on 17.08.2016.
  */
@@ -25,14 +23,121 @@ public class Data {
             0.767397165298462, 0.770297293677362, 0.773186504840851, 0.776064947064992, 0.778932750225067,
             0.781790050767666, 0.784636974334717, 0.787473608513275, 0.790300011634827};
 
+    /**
+     * Squares of CpM, which is what the CP formula actually uses.
+     */
+    private static final double[] CpMSquared = squares(CpM);
+
+    /**
+     * Candy needed to power up a pokemon from each levelIdx to the next one, see
+     * http://pokemongo.gamepress.gg/power-up-costs.
+     */
+    private static final int[] POWER_UP_CANDY = {
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+            2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+            3, 3, 3, 3, 3, 3, 3, 3, 3, 3,
+            4, 4, 4, 4, 4, 4, 4, 4, 4, 4,
+            6, 6, 6, 6, 8, 8, 8, 8, 10, 10,
+            10, 10, 12, 12, 12, 12, 15, 15};
+
+    /**
+     * Stardust needed to power up a pokemon from each levelIdx to the next one.
+     */
+    private static final int[] POWER_UP_STARDUST = {
+            200, 200, 200, 200, 400, 400, 400, 400, 600, 600,
+            600, 600, 800, 800, 800, 800, 1000, 1000, 1000, 1000,
+            1300, 1300, 1300, 1300, 1600, 1600, 1600, 1600, 1900, 1900,
+            1900, 1900, 2200, 2200, 2200, 2200, 2500, 2500, 2500, 2500,
+            3000, 3000, 3000, 3000, 3500, 3500, 3500, 3500, 4000, 4000,
+            4000, 4000, 4500, 4500, 4500, 4500, 5000, 5000, 5000, 5000,
+            6000, 6000, 6000, 6000, 7000, 7000, 7000, 7000, 8000, 8000,
+            8000, 8000, 9000, 9000, 9000, 9000, 10000, 10000};
+
+    /**
+     * Candy and stardust needed to power up a pokemon from level 1 to each levelIdx, so that the cost between any
+     * two levels is a difference of two entries.
+     */
+    private static final int[] CUMULATIVE_POWER_UP_CANDY = prefixSums(POWER_UP_CANDY);
+    private static final int[] CUMULATIVE_POWER_UP_STARDUST = prefixSums(POWER_UP_STARDUST);
+
+    /**
+     * Cost of a plain insertion, deletion or substitution in ocrAwareDistance. Distances returned by that method are
+     * expressed in these units, so divide by EDIT_COST (rounding up) to get an approximate number of edits.
+     */
+    public static final int EDIT_COST = 2;
+
+    /**
+     * Cost of swapping characters tesseract commonly confuses, see OCR_CONFUSIONS.
+     */
+    private static final int OCR_CONFUSION_COST = 1;
+
+    /**
+     * Lowercase character pairs tesseract commonly confuses in pokemon names. The two-to-one confusion "rn"/"m" is
+     * handled separately in ocrAwareDistance.
+     */
+    private static final String[] OCR_CONFUSIONS = {"l1", "o0", "s5", "z2"};
+
+    /**
+     * Per-thread DP rows for ocrAwareDistance, grown on demand, so that name matching doesn't allocate.
+     */
+    private static final ThreadLocal<int[][]> distanceRows = new ThreadLocal<int[][]>() {
+        @Override protected int[][] initialValue() {
+            return new int[3][16];
+        }
+    };
+
     public static int[] arcX;
     public static int[] arcY;
 
+    /**
+     * Check if a screen is so long compared to its width that pokemon go lays out its pokemon screen differently,
+     * like on the Samsung S8.
+     *
+     * @param widthPixels  Width of the screen.
+     * @param heightPixels Height of the screen.
+     * @return true if the S8 specific scan areas must be used.
+     */
+    public static boolean isExtraLongScreen(int widthPixels, int heightPixels) {
+        double screenRatio = (double) heightPixels / (double) widthPixels;
+        return screenRatio > 1.9 && screenRatio < 2.06;
+    }
+
     /**
      * setupArcPoints
-     * Sets up the x,y coordinates of the arc using the trainer level, stores it in Data.arcX/arcY
+     * Sets up the x,y coordinates of the arc for a screen of the given size using the trainer level, stores it in
+     * Data.arcX/arcY
      */
-    public static void setupArcPoints(Point arcInit, int arcRadius, int trainerLevel) {
+    public static void setupArcPoints(int widthPixels, int heightPixels, int trainerLevel) {
+        int arcInitX;
+        int arcInitY;
+        int arcRadius;
+        if (isExtraLongScreen(widthPixels, heightPixels)) {
+            int displayHeight = (int) (widthPixels * 2.0555555);
+            //displayheight is calculated from width because height is dependent on aspect ratio
+            //And s8 and s8+ have different height of navbar, which is not reported bby displaymetrics.
+            arcInitX = (int) (widthPixels * 0.5);
+            arcInitY = (int) (displayHeight * 0.3067567);
+            //magical number measured in photoshop, "middle of circle" ~905
+
+            arcRadius = (int) (displayHeight * 0.19695945);//583;
+        } else {
+            arcInitX = (int) (widthPixels * 0.5);
+
+            arcInitY = (int) Math.floor(heightPixels * 0.35664);
+            if (heightPixels == 2392 || heightPixels == 800) {
+                arcInitY--;
+            } else if (heightPixels == 1920) {
+                arcInitY++;
+            }
+
+            arcRadius = (int) Math.round(heightPixels * 0.2285);
+            if (heightPixels == 1776 || heightPixels == 960 || heightPixels == 800) {
+                arcRadius++;
+            }
+        }
+
         /*
          * Pokemon levels go from 1 to trainerLevel + 1.5, in increments of 0.5.
          * Here we use levelIdx for levels that are doubled and shifted by - 2; after this adjustment,
@@ -52,8 +157,8 @@ public class Data {
             double arcRatio = pokeCurrCpMDelta / maxPokeCpMDelta;
             double angleInRadians = (arcRatio + 1) * Math.PI;
 
-            arcX[pokeLevelIdx] = (int) (arcInit.x + (arcRadius * Math.cos(angleInRadians)));
-            arcY[pokeLevelIdx] = (int) (arcInit.y + (arcRadius * Math.sin(angleInRadians)));
+            arcX[pokeLevelIdx] = (int) (arcInitX + (arcRadius * Math.cos(angleInRadians)));
+            arcY[pokeLevelIdx] = (int) (arcInitY + (arcRadius * Math.sin(angleInRadians)));
         }
     }
 
@@ -89,6 +194,34 @@ public class Data {
         return CpM[levelToLevelIdx(level)];
     }
 
+    /**
+     * Return CpM (CP Multiplier) for a given level index, see levelToLevelIdx.
+     *
+     * @param levelIdx The desired level index.
+     * @return Associated CpM.
+     */
+    public static double getLevelIdxCpM(int levelIdx) {
+        return CpM[levelIdx];
+    }
+
+    /**
+     * Return the square of CpM for a given level index, as used by the CP formula.
+     *
+     * @param levelIdx The desired level index.
+     * @return Associated CpM squared.
+     */
+    public static double getLevelIdxCpMSquared(int levelIdx) {
+        return CpMSquared[levelIdx];
+    }
+
+    private static double[] squares(double[] values) {
+        double[] squares = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            squares[i] = Math.pow(values[i], 2);
+        }
+        return squares;
+    }
+
     /**
      * Maximum pokemon level for a trainer, from the trainer level. That's usually trainerLevel + 1.5, but
      * the maximum is 40 (http://pokemongo.gamepress.gg/power-up-costs).
@@ -107,52 +240,149 @@ public class Data {
         return levelToLevelIdx(trainerLevelToMaxPokeLevel(trainerLevel));
     }
 
-    // should be pretty fast https://en.wikibooks.org/wiki/Algorithm_Implementation/Strings/Levenshtein_distance#Java
-    public static int levenshteinDistance(CharSequence lhs, CharSequence rhs) {
-        if (rhs == null) {
-            return Integer.MAX_VALUE;
+    /**
+     * Candy needed to power up a pokemon between two level indexes, see levelToLevelIdx.
+     *
+     * @param fromLevelIdx the current level index of the pokemon.
+     * @param toLevelIdx   the level index to reach; levels above 40 are treated as 40.
+     * @return the needed candy, or 0 if toLevelIdx isn't above fromLevelIdx.
+     */
+    public static int getPowerUpCandy(int fromLevelIdx, int toLevelIdx) {
+        return getPowerUpCost(CUMULATIVE_POWER_UP_CANDY, fromLevelIdx, toLevelIdx);
+    }
+
+    /**
+     * Stardust needed to power up a pokemon between two level indexes, see levelToLevelIdx.
+     *
+     * @param fromLevelIdx the current level index of the pokemon.
+     * @param toLevelIdx   the level index to reach; levels above 40 are treated as 40.
+     * @return the needed stardust, or 0 if toLevelIdx isn't above fromLevelIdx.
+     */
+    public static int getPowerUpStardust(int fromLevelIdx, int toLevelIdx) {
+        return getPowerUpCost(CUMULATIVE_POWER_UP_STARDUST, fromLevelIdx, toLevelIdx);
+    }
+
+    private static int getPowerUpCost(int[] cumulativeCost, int fromLevelIdx, int toLevelIdx) {
+        int maxLevelIdx = cumulativeCost.length - 1;
+        fromLevelIdx = Math.max(0, Math.min(fromLevelIdx, maxLevelIdx));
+        toLevelIdx = Math.max(0, Math.min(toLevelIdx, maxLevelIdx));
+        if (toLevelIdx <= fromLevelIdx) {
+            return 0;
         }
+        return cumulativeCost[toLevelIdx] - cumulativeCost[fromLevelIdx];
+    }
 
-        int len0 = lhs.length() + 1;
-        int len1 = rhs.length() + 1;
+    /**
+     * Compute prefix sums of costs, where entry i of the result is the sum of the first i costs.
+     */
+    private static int[] prefixSums(int[] costs) {
+        int[] sums = new int[costs.length + 1];
+        for (int i = 0; i < costs.length; i++) {
+            sums[i + 1] = sums[i] + costs[i];
+        }
+        return sums;
+    }
 
-        // the array of distances
-        int[] cost = new int[len0];
-        int[] newcost = new int[len0];
+    /**
+     * Weighted, bounded edit distance for matching OCR output against known names. Plain edits cost EDIT_COST, while
+     * substitutions that tesseract commonly gets wrong (l/1, o/0, s/5, z/2, rn/m) cost less, so "c1efairy" is closer
+     * to "clefairy" than to any name needing a real edit. Both strings are expected to be lowercase.
+     * <p/>
+     * Only the diagonal band that can stay within maxDistance is computed, and the computation stops as soon as two
+     * whole rows in a row exceed it, so scanning a candidate list with the best distance so far as bound is cheap.
+     *
+     * @param lhs         the reference string, for instance a pokemon name.
+     * @param rhs         the scanned string.
+     * @param maxDistance the largest distance the caller is interested in.
+     * @return the distance in EDIT_COST units, or maxDistance + 1 if it exceeds maxDistance.
+     */
+    public static int ocrAwareDistance(CharSequence lhs, CharSequence rhs, int maxDistance) {
+        if (rhs == null || maxDistance < 0) {
+            return Integer.MAX_VALUE;
+        }
 
-        // initial cost of skipping prefix in String s0
-        for (int i = 0; i < len0; i++) {
-            cost[i] = i;
+        int len0 = lhs.length();
+        int len1 = rhs.length();
+        // No distance can exceed deleting and inserting everything; capping the bound keeps out of overflow.
+        int limit = Math.min(maxDistance, (len0 + len1) * EDIT_COST);
+        int outOfBand = limit + 1;
+        // Every step off the diagonal costs at least OCR_CONFUSION_COST, which bounds the band and length difference.
+        int band = limit / OCR_CONFUSION_COST;
+        if (Math.abs(len0 - len1) > band) {
+            return maxDistance + 1;
         }
 
-        // dynamically computing the array of distances
+        int[][] rows = distanceRows.get();
+        if (rows[0].length < len0 + 2) {
+            rows = new int[3][len0 + 2];
+            distanceRows.set(rows);
+        }
+        int[] older = rows[0]; // row j - 2
+        int[] prev = rows[1]; // row j - 1
+        int[] curr = rows[2]; // row j
 
-        // transformation cost for each letter in s1
-        for (int j = 1; j < len1; j++) {
-            // initial cost of skipping prefix in String s1
-            newcost[0] = j;
+        int hi = Math.min(len0, band);
+        for (int i = 0; i <= hi; i++) {
+            curr[i] = i * EDIT_COST;
+        }
+        curr[hi + 1] = outOfBand;
 
-            // transformation cost for each letter in s0
-            for (int i = 1; i < len0; i++) {
-                // matching current letters in both strings
-                int match = (lhs.charAt(i - 1) == rhs.charAt(j - 1)) ? 0 : 1;
+        int prevRowMin = 0;
+        for (int j = 1; j <= len1; j++) {
+            int[] swap = older;
+            older = prev;
+            prev = curr;
+            curr = swap;
 
-                // computing cost for each transformation
-                int cost_replace = cost[i - 1] + match;
-                int cost_insert = cost[i] + 1;
-                int cost_delete = newcost[i - 1] + 1;
+            int lo = Math.max(1, j - band);
+            hi = Math.min(len0, j + band);
+            curr[lo - 1] = lo == 1 && j <= band ? j * EDIT_COST : outOfBand;
+            if (hi < len0) {
+                curr[hi + 1] = outOfBand;
+            }
 
-                // keep minimum cost
-                newcost[i] = Math.min(Math.min(cost_insert, cost_delete), cost_replace);
+            char rhsChar = rhs.charAt(j - 1);
+            boolean rhsEndsWithRn = j >= 2 && rhsChar == 'n' && rhs.charAt(j - 2) == 'r';
+            int rowMin = curr[lo - 1];
+            for (int i = lo; i <= hi; i++) {
+                char lhsChar = lhs.charAt(i - 1);
+                int best = Math.min(prev[i], curr[i - 1]) + EDIT_COST;
+                best = Math.min(best, prev[i - 1] + substitutionCost(lhsChar, rhsChar));
+                if (rhsChar == 'm' && i >= 2 && lhsChar == 'n' && lhs.charAt(i - 2) == 'r') {
+                    best = Math.min(best, prev[i - 2] + OCR_CONFUSION_COST);
+                }
+                if (rhsEndsWithRn && lhsChar == 'm') {
+                    best = Math.min(best, older[i - 1] + OCR_CONFUSION_COST);
+                }
+                curr[i] = best;
+                rowMin = Math.min(rowMin, best);
             }
 
-            // swap cost/newcost arrays
-            int[] swap = cost;
-            cost = newcost;
-            newcost = swap;
+            // The rn to m step reads two rows back, so a row only rules out a match when the row before it does too.
+            if (rowMin > limit && prevRowMin > limit) {
+                return maxDistance + 1; // every later row can only be worse
+            }
+            prevRowMin = rowMin;
         }
 
-        // the distance is the cost for transforming all letters in both strings
-        return cost[len0 - 1];
+        int distance = curr[len0];
+        return distance > limit ? maxDistance + 1 : distance;
+    }
+
+    /**
+     * Cost of replacing one character with another in ocrAwareDistance.
+     */
+    private static int substitutionCost(char a, char b) {
+        if (a == b) {
+            return 0;
+        }
+        for (String confusion : OCR_CONFUSIONS) {
+            char first = confusion.charAt(0);
+            char second = confusion.charAt(1);
+            if ((a == first && b == second) || (a == second && b == first)) {
+                return OCR_CONFUSION_COST;
+            }
+        }
+        return EDIT_COST;
     }
 }
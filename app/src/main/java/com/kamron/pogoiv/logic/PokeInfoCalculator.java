@@ -11,6 +11,8 @@ import java.util.List;
  * A class which interprets pokemon information
  */
 public class PokeInfoCalculator {
+    private static final double MAX_LEVEL = 40;
+
     private static PokeInfoCalculator instance;
 
     private ArrayList<Pokemon> pokedex = new ArrayList<>();
@@ -29,6 +31,53 @@ public class PokeInfoCalculator {
 
     private HashMap<String, Pokemon> pokemap = new HashMap<>();
 
+    /*
+     * Evolution graph, precomputed once so that evolution queries don't walk devoNumber pointers or allocate.
+     * All arrays are indexed by Pokemon.number.
+     */
+
+    /**
+     * Lowest evolution of each pokemon; pokemon share an evolution chain iff they have the same lowest evolution.
+     */
+    private Pokemon[] lowestEvolutions;
+
+    /**
+     * Evolution line of each pokemon, in topological order (each pokemon comes after what it evolves from).
+     * Pokemon in the same chain share the same unmodifiable list.
+     */
+    private List<List<Pokemon>> evolutionLines;
+
+    /**
+     * Index of each pokemon in its evolution line.
+     */
+    private int[] evolutionLinePositions;
+
+    /**
+     * Cumulative candy cost matrix of the evolution line of each pokemon, indexed by evolutionLinePositions:
+     * [start][end] is the candy needed to evolve start into end, or 0 if end isn't a later evolution of start.
+     */
+    private int[][][] evolutionLineCandyCosts;
+
+    /**
+     * Each pokemon followed by everything it can evolve into, in topological order.
+     */
+    private List<List<Pokemon>> evolutionsFrom;
+
+    /**
+     * Last pokemon of the evolution line for pokemon that can evolve, the pokemon itself otherwise.
+     */
+    private Pokemon[] lastEvolutions;
+
+    /**
+     * CP of each pokemon with perfect IVs at each level index up to level 40, indexed by Pokemon.number then levelIdx.
+     */
+    private final int[][] perfectCps;
+
+    /**
+     * Highest CP that a pokemon with perfect IVs has at level 40, over the whole pokedex.
+     */
+    private final int highestPerfectMaxLevelCp;
+
     public static PokeInfoCalculator getInstance(String[] namesArray, String[] displayNamesArray,
                                                  int[] attackArray, int[] defenceArray, int[] staminaArray,
                                                  int[] devolutionArray, int[] evolutionCandyCostArray,
@@ -40,6 +89,24 @@ public class PokeInfoCalculator {
         return instance;
     }
 
+    /**
+     * Get the instance of pokeinfoCalculator, creating it from the binary pokedex asset if needed.
+     *
+     * @param namesArray        array of all pokemon names
+     * @param displayNamesArray array of all pokemon display names
+     * @param pokedexData       the base stats, evolutions and candy names of all pokemon
+     * @return the instance of PokeInfoCalculator.
+     */
+    public static PokeInfoCalculator getInstance(String[] namesArray, String[] displayNamesArray,
+                                                 PokedexData pokedexData) {
+        if (instance == null) {
+            instance = new PokeInfoCalculator(namesArray, displayNamesArray, pokedexData.getAttack(),
+                    pokedexData.getDefense(), pokedexData.getStamina(), pokedexData.getDevolutionNumber(),
+                    pokedexData.getEvolutionCandyCost(), pokedexData.getCandyNames());
+        }
+        return instance;
+    }
+
     /**
      * Get the instance of pokeinfoCalculator. Must have been initiated first!
      *
@@ -65,6 +132,20 @@ public class PokeInfoCalculator {
                                int[] evolutionCandyCostArray, int[] candyNamesArray) {
         populatePokemon(namesArray, displayNamesArray, attackArray, defenceArray, staminaArray, devolutionArray,
                 evolutionCandyCostArray, candyNamesArray);
+        buildEvolutionGraph();
+
+        int maxLevelIdx = Data.levelToLevelIdx(MAX_LEVEL);
+        perfectCps = new int[pokedex.size()][maxLevelIdx + 1];
+        int highest = 0;
+        for (Pokemon pokemon : pokedex) {
+            int[] cps = perfectCps[pokemon.number];
+            for (int levelIdx = 0; levelIdx <= maxLevelIdx; levelIdx++) {
+                cps[levelIdx] = getCpRangeAtLevel(pokemon, IVCombination.MAX, IVCombination.MAX,
+                        Data.levelIdxToLevel(levelIdx)).high;
+            }
+            highest = Math.max(highest, cps[maxLevelIdx]);
+        }
+        highestPerfectMaxLevelCp = highest;
     }
 
     public List<Pokemon> getPokedex() {
@@ -102,8 +183,8 @@ public class PokeInfoCalculator {
     }
 
     /**
-     * Fills the list "pokemon" with the information of all pokemon by reading the
-     * arrays in integers.xml and the names from the strings.xml resources.
+     * Fills the list "pokemon" with the information of all pokemon from the arrays in integers.xml, or the pokedex
+     * asset compiled from them, and the names from the strings.xml resources.
      */
     private void populatePokemon(String[] names, String[] displayNames, int[] attack, int[] defense, int[] stamina,
                                  int[] devolution, int[] evolutionCandyCost, int[] candyNamesArray) {
@@ -130,61 +211,74 @@ public class PokeInfoCalculator {
         }
     }
 
+    /**
+     * Precomputes lowestEvolutions, evolutionLines, evolutionLinePositions, evolutionLineCandyCosts, evolutionsFrom
+     * and lastEvolutions from the devolution links set up by populatePokemon.
+     */
+    private void buildEvolutionGraph() {
+        int pokeListSize = pokedex.size();
+        lowestEvolutions = new Pokemon[pokeListSize];
+        evolutionLines = new ArrayList<>(Collections.<List<Pokemon>>nCopies(pokeListSize, null));
+        evolutionLinePositions = new int[pokeListSize];
+        evolutionLineCandyCosts = new int[pokeListSize][][];
+        evolutionsFrom = new ArrayList<>(Collections.<List<Pokemon>>nCopies(pokeListSize, null));
+        lastEvolutions = new Pokemon[pokeListSize];
+
+        for (Pokemon base : basePokemons) {
+            //Breadth-first, so that the line lists the base, then its evolutions, then theirs.
+            ArrayList<Pokemon> line = new ArrayList<>();
+            line.add(base);
+            for (int i = 0; i < line.size(); i++) {
+                line.addAll(line.get(i).evolutions);
+            }
+            List<Pokemon> unmodifiableLine = Collections.unmodifiableList(line);
+
+            int[][] candyCosts = new int[line.size()][line.size()];
+            for (int i = 0; i < line.size(); i++) {
+                Pokemon poke = line.get(i);
+                lowestEvolutions[poke.number] = base;
+                evolutionLines.set(poke.number, unmodifiableLine);
+                evolutionLinePositions[poke.number] = i;
+                evolutionLineCandyCosts[poke.number] = candyCosts;
+            }
+
+            for (int end = line.size() - 1; end >= 0; end--) {
+                Pokemon poke = line.get(end);
+                //Walk back from end to the base, accumulating the cost from each ancestor.
+                int cost = 0;
+                Pokemon ancestor = get(poke.devoNumber);
+                while (ancestor != null) {
+                    cost += ancestor.candyEvolutionCost;
+                    candyCosts[evolutionLinePositions[ancestor.number]][end] = cost;
+                    ancestor = get(ancestor.devoNumber);
+                }
+
+                //Later evolutions of poke come after it in the line, so they are already computed.
+                ArrayList<Pokemon> from = new ArrayList<>();
+                from.add(poke);
+                for (Pokemon evolution : poke.evolutions) {
+                    from.addAll(evolutionsFrom.get(evolution.number));
+                }
+                evolutionsFrom.set(poke.number, Collections.unmodifiableList(from));
+
+                lastEvolutions[poke.number] = poke.evolutions.isEmpty() ? poke : line.get(line.size() - 1);
+            }
+        }
+    }
+
     /**
      * getUpgradeCost
      * Gets the needed required candy and stardust to hit max level (relative to trainer level)
      *
      * @param goalLevel             The level to reach
      * @param estimatedPokemonLevel The estimated level of hte pokemon
-     * @return The text that shows the amount of candy and stardust needed.
+     * @return The amount of candy and stardust needed, which is zero if goalLevel isn't above estimatedPokemonLevel.
      */
     public UpgradeCost getUpgradeCost(double goalLevel, double estimatedPokemonLevel) {
-        int neededCandy = 0;
-        int neededStarDust = 0;
-        while (estimatedPokemonLevel != goalLevel) {
-            int rank = 5;
-            if ((estimatedPokemonLevel % 10) >= 1 && (estimatedPokemonLevel % 10) <= 2.5) {
-                rank = 1;
-            } else if ((estimatedPokemonLevel % 10) > 2.5 && (estimatedPokemonLevel % 10) <= 4.5) {
-                rank = 2;
-            } else if ((estimatedPokemonLevel % 10) > 4.5 && (estimatedPokemonLevel % 10) <= 6.5) {
-                rank = 3;
-            } else if ((estimatedPokemonLevel % 10) > 6.5 && (estimatedPokemonLevel % 10) <= 8.5) {
-                rank = 4;
-            }
-
-            if (estimatedPokemonLevel <= 10.5) {
-                neededCandy++;
-                neededStarDust += rank * 200;
-            } else if (estimatedPokemonLevel > 10.5 && estimatedPokemonLevel <= 20.5) {
-                neededCandy += 2;
-                neededStarDust += 1000 + (rank * 300);
-            } else if (estimatedPokemonLevel > 20.5 && estimatedPokemonLevel <= 25.5) {
-                neededCandy += 3;
-                neededStarDust += 2500 + (rank * 500);
-            } else if (estimatedPokemonLevel > 25.5 && estimatedPokemonLevel <= 30.5) {
-                neededCandy += 4;
-                neededStarDust += 2500 + (rank * 500);
-            } else if (estimatedPokemonLevel > 30.5 && estimatedPokemonLevel <= 32.5) {
-                neededCandy += 6;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 32.5 && estimatedPokemonLevel <= 34.5) {
-                neededCandy += 8;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 34.5 && estimatedPokemonLevel <= 36.5) {
-                neededCandy += 10;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 36.5 && estimatedPokemonLevel <= 38.5) {
-                neededCandy += 12;
-                neededStarDust += 5000 + (rank * 1000);
-            } else if (estimatedPokemonLevel > 38.5) {
-                neededCandy += 15;
-                neededStarDust += 5000 + (rank * 1000);
-            }
-
-            estimatedPokemonLevel += 0.5;
-        }
-        return new UpgradeCost(neededStarDust, neededCandy);
+        int fromLevelIdx = Data.levelToLevelIdx(estimatedPokemonLevel);
+        int toLevelIdx = Data.levelToLevelIdx(goalLevel);
+        return new UpgradeCost(Data.getPowerUpStardust(fromLevelIdx, toLevelIdx),
+                Data.getPowerUpCandy(fromLevelIdx, toLevelIdx));
     }
 
 
@@ -200,26 +294,48 @@ public class PokeInfoCalculator {
      */
     public IVScanResult getIVPossibilities(Pokemon selectedPokemon, double estimatedPokemonLevel, int pokemonHP,
                                            int pokemonCP) {
+        IVScanResult returner = ScanContainer.createIVScanResult(selectedPokemon, estimatedPokemonLevel, pokemonCP);
+        addIVPossibilities(returner, pokemonHP);
+        return returner;
+    }
+
+    /**
+     * Like getIVPossibilities, but doesn't remember the result as the latest scan in ScanContainer, so it can be used
+     * for scans the user doesn't look at, from any thread.
+     */
+    public IVScanResult calculateIVPossibilities(Pokemon selectedPokemon, double estimatedPokemonLevel,
+                                                 int pokemonHP, int pokemonCP) {
+        IVScanResult returner = new IVScanResult(selectedPokemon, estimatedPokemonLevel, pokemonCP);
+        addIVPossibilities(returner, pokemonHP);
+        return returner;
+    }
+
+    /**
+     * Add the IV combinations matching the level and CP of an IVScanResult, and the given HP.
+     */
+    private void addIVPossibilities(IVScanResult returner, int pokemonHP) {
+        Pokemon selectedPokemon = returner.pokemon;
+        int pokemonCP = returner.scannedCP;
         int baseAttack = selectedPokemon.baseAttack;
-        int baseDefense = selectedPokemon.baseDefense;
         int baseStamina = selectedPokemon.baseStamina;
 
-        double lvlScalar = Data.getLevelCpM(estimatedPokemonLevel);
-        double lvlScalarPow2 = Math.pow(lvlScalar, 2) * 0.1; // instead of computing again in every loop
-        //IV vars for lower and upper end cp ranges
+        int levelIdx = Data.levelToLevelIdx(returner.estimatedPokemonLevel);
+        double lvlScalar = Data.getLevelIdxCpM(levelIdx);
+        double lvlScalarPow2 = Data.getLevelIdxCpMSquared(levelIdx) * 0.1; // instead of computing again in every loop
 
-
-        IVScanResult returner = ScanContainer.createIVScanResult(selectedPokemon, estimatedPokemonLevel, pokemonCP);
         for (int staminaIV = 0; staminaIV < 16; staminaIV++) {
             int hp = (int) Math.max(Math.floor((baseStamina + staminaIV) * lvlScalar), 10);
             if (hp == pokemonHP) {
-                double lvlScalarStamina = Math.sqrt(baseStamina + staminaIV) * lvlScalarPow2;
+                double lvlScalarStamina = selectedPokemon.getSqrtStamina(staminaIV) * lvlScalarPow2;
                 for (int defenseIV = 0; defenseIV < 16; defenseIV++) {
+                    double sqrtDefense = selectedPokemon.getSqrtDefense(defenseIV);
                     for (int attackIV = 0; attackIV < 16; attackIV++) {
-                        int cp = Math.max(10, (int) Math.floor((baseAttack + attackIV) * Math.sqrt(baseDefense
-                                + defenseIV) * lvlScalarStamina));
+                        int cp = Math.max(10, (int) Math.floor((baseAttack + attackIV) * sqrtDefense
+                                * lvlScalarStamina));
                         if (cp == pokemonCP) {
                             returner.addIVCombination(attackIV, defenseIV, staminaIV);
+                        } else if (cp > pokemonCP) {
+                            break; // cp only grows with the attack iv
                         }
                     }
                 }
@@ -229,7 +345,6 @@ public class PokeInfoCalculator {
         }
 
         returner.scannedHP = pokemonHP;
-        return returner;
     }
 
 
@@ -251,14 +366,11 @@ public class PokeInfoCalculator {
             return new CPRange(0, 0);
         }
         int baseAttack = pokemon.baseAttack;
-        int baseDefense = pokemon.baseDefense;
-        int baseStamina = pokemon.baseStamina;
-        double lvlScalar = Data.getLevelCpM(level);
-        int cpMin = (int) Math.floor(
-                (baseAttack + low.att) * Math.sqrt(baseDefense + low.def) * Math.sqrt(baseStamina + low.sta)
-                        * Math.pow(lvlScalar, 2) * 0.1);
-        int cpMax = (int) Math.floor((baseAttack + high.att) * Math.sqrt(baseDefense + high.def)
-                * Math.sqrt(baseStamina + high.sta) * Math.pow(lvlScalar, 2) * 0.1);
+        double lvlScalarPow2 = Data.getLevelIdxCpMSquared(Data.levelToLevelIdx(level));
+        int cpMin = (int) Math.floor((baseAttack + low.att) * pokemon.getSqrtDefense(low.def)
+                * pokemon.getSqrtStamina(low.sta) * lvlScalarPow2 * 0.1);
+        int cpMax = (int) Math.floor((baseAttack + high.att) * pokemon.getSqrtDefense(high.def)
+                * pokemon.getSqrtStamina(high.sta) * lvlScalarPow2 * 0.1);
         if (cpMin > cpMax) {
             int tmp = cpMax;
             cpMax = cpMin;
@@ -277,23 +389,12 @@ public class PokeInfoCalculator {
      * @return the combined candy cost for all required evolutions
      */
     public int getCandyCostForEvolution(Pokemon start, Pokemon end) {
-        Pokemon devolution = get(end.devoNumber);
-        Pokemon dedevolution = null;
-        if (devolution != null) { //devolution must exist for there to be a devolution of the devolution
-            dedevolution = get(devolution.devoNumber);
+        if (!isInSameEvolutionChain(start, end)) {
+            return 0;
         }
-
-        boolean isEndReallyAfterStart = (devolution == start)
-                || dedevolution == start; //end must be devolution or devolution of devolution of start
-        int cost = 0;
-        if (isInSameEvolutionChain(start, end) && isEndReallyAfterStart) {
-            while (start != end) { //move backwards from end until you've reached start
-                Pokemon beforeEnd = get(end.devoNumber);
-                cost += beforeEnd.candyEvolutionCost;
-                end = beforeEnd;
-            }
-        }
-        return cost;
+        //The matrix holds 0 unless end is really after start.
+        int[][] candyCosts = evolutionLineCandyCosts[start.number];
+        return candyCosts[evolutionLinePositions[start.number]][evolutionLinePositions[end.number]];
     }
 
     /**
@@ -304,50 +405,61 @@ public class PokeInfoCalculator {
      * @return true if both pokemon are in the same pokemon evolution tree
      */
     private boolean isInSameEvolutionChain(Pokemon p1, Pokemon p2) {
-        ArrayList<Pokemon> evolutionLine = getEvolutionLine(p1);
-        for (Pokemon poke : evolutionLine) {
-            if (poke.number == p2.number) {
-                return true;
-            }
-        }
-        return false;
+        return lowestEvolutions[p1.number] == lowestEvolutions[p2.number];
     }
 
     /**
-     * Get the lowest evolution in the chain of a pokemon.
+     * Returns the evolution line of a pokemon.
      *
-     * @param poke a pokemon, example charizard
-     * @return a pokemon, in the example would return charmander
+     * @param poke the pokemon to check the evolution line of
+     * @return an unmodifiable list with the lowest evolution of the pokemon followed by all its evolutions
      */
-    private Pokemon getLowestEvolution(Pokemon poke) {
-        if (poke.devoNumber < 0) {
-            return poke; //already lowest evolution
-        }
+    public List<Pokemon> getEvolutionLine(Pokemon poke) {
+        return evolutionLines.get(poke.number);
+    }
 
-        Pokemon devoPoke = get(poke.devoNumber);
-        while (devoPoke.devoNumber >= 0) { //while devol
-            devoPoke = get(devoPoke.devoNumber);
-        }
-        return devoPoke;
+    /**
+     * Returns a pokemon followed by everything it can evolve into. For example, for eevee this returns eevee and all
+     * eeveelutions, for charmeleon it returns charmeleon and charizard.
+     *
+     * @param poke the pokemon to start from
+     * @return an unmodifiable list with poke and all its later evolutions
+     */
+    public List<Pokemon> getEvolutionsFrom(Pokemon poke) {
+        return evolutionsFrom.get(poke.number);
     }
 
     /**
-     * Returns the evolution line of a pokemon.
+     * Get the last evolution in the evolution line of a pokemon, unless the pokemon does not evolve. This way
+     * vaporeon stays vaporeon instead of becoming whichever eeveelution is last in the line.
      *
-     * @param poke the pokemon to check the evolution line of
-     * @return a list with pokemon, input pokemon plus its evolutions
+     * @param poke the pokemon to find the last evolution of
+     * @return the last pokemon in the evolution line, or poke itself if it doesn't evolve
      */
-    public ArrayList<Pokemon> getEvolutionLine(Pokemon poke) {
-        poke = getLowestEvolution(poke);
-
-        ArrayList<Pokemon> list = new ArrayList<>();
-        list.add(poke); //add self
-        list.addAll(poke.evolutions); //add all immediate evolutions
-        for (Pokemon evolution : poke.evolutions) {
-            list.addAll(evolution.evolutions);
+    public Pokemon getLastEvolution(Pokemon poke) {
+        return lastEvolutions[poke.number];
+    }
+
+    /**
+     * Get the CP a pokemon has with perfect IVs, from a table computed when the calculator was created.
+     *
+     * @param poke  the pokemon to get the CP of
+     * @param level the level of the pokemon, from 1 to 40
+     * @return the CP of poke with 15/15/15 IVs at level
+     * @throws IllegalArgumentException if level is out of that range, where there's no CP multiplier
+     */
+    public int getPerfectCpAtLevel(Pokemon poke, double level) {
+        if (level < 1 || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Level " + level + " is not between 1 and " + MAX_LEVEL);
         }
+        return perfectCps[poke.number][Data.levelToLevelIdx(level)];
+    }
 
-        return list;
+    /**
+     * Get the highest CP any pokemon has with perfect IVs at level 40.
+     */
+    public int getHighestPerfectMaxLevelCp() {
+        return highestPerfectMaxLevelCp;
     }
 
     /**
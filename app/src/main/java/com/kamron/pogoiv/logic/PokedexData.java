@@ -0,0 +1,101 @@
+package com.kamron.pogoiv.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/**
+ * The base stats, evolution links and candy names of the pokedex, read from the binary asset that the
+ * generatePokedexAsset task of app/build.gradle compiles from the arrays of integers.xml.
+ * <p>
+ * The asset is big endian: the int MAGIC, the int VERSION, the int number of pokemon, then one column of shorts per
+ * array, in the order attack, defense, stamina, devolutionNumber, evolutionCandyCost, candyNames. A column is only
+ * decoded when asked for, so the asset can be read straight from a memory-mapped buffer.
+ */
+public final class PokedexData {
+
+    public static final String ASSET_NAME = "pokedex.bin";
+    public static final int MAGIC = 0x47495650; // "GIVP"
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 12;
+    private static final int ATTACK = 0;
+    private static final int DEFENSE = 1;
+    private static final int STAMINA = 2;
+    private static final int DEVOLUTION_NUMBER = 3;
+    private static final int EVOLUTION_CANDY_COST = 4;
+    private static final int CANDY_NAMES = 5;
+    private static final int COLUMN_COUNT = 6;
+
+    private final ShortBuffer columns;
+    private final int count;
+
+    private PokedexData(ShortBuffer columns, int count) {
+        this.columns = columns;
+        this.count = count;
+    }
+
+    /**
+     * Read the header of a pokedex asset. The buffer isn't copied and must not be modified afterwards.
+     *
+     * @param buffer The content of the asset, from its position to its limit.
+     * @return The pokedex data backed by the buffer.
+     * @throws IOException If the buffer isn't a pokedex asset of this version, or is truncated.
+     */
+    public static PokedexData read(ByteBuffer buffer) throws IOException {
+        ByteBuffer data = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a pokedex asset");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported pokedex asset version " + data.getInt(4));
+        }
+        int count = data.getInt(8);
+        if (count < 0 || (data.remaining() - HEADER_SIZE) / 2 / COLUMN_COUNT < count) {
+            throw new IOException("Truncated pokedex asset");
+        }
+        data.position(HEADER_SIZE);
+        return new PokedexData(data.slice().asShortBuffer(), count);
+    }
+
+    /**
+     * Get how many pokemon the pokedex has.
+     */
+    public int size() {
+        return count;
+    }
+
+    public int[] getAttack() {
+        return getColumn(ATTACK);
+    }
+
+    public int[] getDefense() {
+        return getColumn(DEFENSE);
+    }
+
+    public int[] getStamina() {
+        return getColumn(STAMINA);
+    }
+
+    public int[] getDevolutionNumber() {
+        return getColumn(DEVOLUTION_NUMBER);
+    }
+
+    public int[] getEvolutionCandyCost() {
+        return getColumn(EVOLUTION_CANDY_COST);
+    }
+
+    public int[] getCandyNames() {
+        return getColumn(CANDY_NAMES);
+    }
+
+    private int[] getColumn(int column) {
+        int[] values = new int[count];
+        int offset = column * count;
+        for (int i = 0; i < count; i++) {
+            values[i] = columns.get(offset + i);
+        }
+        return values;
+    }
+}
@@ -25,6 +25,11 @@ public class Pokemon {
      */
     private final String displayName;
 
+    /**
+     * Lowercase version of name, kept around since name matching runs on every scan.
+     */
+    private final String lowerCaseName;
+
     public final int number; //index number in resources, pokedex number - 1
     public final int baseAttack;
     public final int baseDefense;
@@ -32,10 +37,18 @@ public class Pokemon {
     public final int devoNumber;
     public final int candyEvolutionCost;
 
+    /**
+     * Square roots of base defense and base stamina plus each possible IV, indexed by IV, since the CP formula
+     * needs them for every IV combination.
+     */
+    private final double[] sqrtDefense = new double[16];
+    private final double[] sqrtStamina = new double[16];
+
     public Pokemon(String name, String displayName, int number, int baseAttack, int baseDefense, int baseStamina,
                    int devoNumber, int candyEvolutionCost) {
         this.name = name;
         this.displayName = displayName;
+        this.lowerCaseName = name.toLowerCase();
         this.number = number;
         this.baseAttack = baseAttack;
         this.baseDefense = baseDefense;
@@ -43,6 +56,30 @@ public class Pokemon {
         this.devoNumber = devoNumber;
         this.evolutions = new ArrayList<>();
         this.candyEvolutionCost = candyEvolutionCost;
+        for (int iv = 0; iv < 16; iv++) {
+            sqrtDefense[iv] = Math.sqrt(baseDefense + iv);
+            sqrtStamina[iv] = Math.sqrt(baseStamina + iv);
+        }
+    }
+
+    /**
+     * Get the square root of the defense of this pokemon with the given IV.
+     *
+     * @param defenseIV a defense IV between 0 and 15
+     * @return Math.sqrt(baseDefense + defenseIV)
+     */
+    public double getSqrtDefense(int defenseIV) {
+        return sqrtDefense[defenseIV];
+    }
+
+    /**
+     * Get the square root of the stamina of this pokemon with the given IV.
+     *
+     * @param staminaIV a stamina IV between 0 and 15
+     * @return Math.sqrt(baseStamina + staminaIV)
+     */
+    public double getSqrtStamina(int staminaIV) {
+        return sqrtStamina[staminaIV];
     }
 
     @Override
@@ -50,12 +87,15 @@ public class Pokemon {
         return displayName;
     }
 
-    public int getDistanceCaseInsensitive(String rhs) {
-        return Data.levenshteinDistance(name.toLowerCase(), rhs.toLowerCase());
-    }
-
-    public int getDistance(String rhs) {
-        return Data.levenshteinDistance(name, rhs);
+    /**
+     * Get the OCR-aware distance between this pokemon name and a scanned text, see Data.ocrAwareDistance.
+     *
+     * @param lowerCaseRhs the scanned text, already lowercased.
+     * @param maxDistance  the largest distance the caller is interested in.
+     * @return the distance, or maxDistance + 1 if it's larger than maxDistance.
+     */
+    public int getOcrAwareDistance(String lowerCaseRhs, int maxDistance) {
+        return Data.ocrAwareDistance(lowerCaseName, lowerCaseRhs, maxDistance);
     }
 
     /**
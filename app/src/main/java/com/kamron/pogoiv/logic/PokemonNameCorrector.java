@@ -4,8 +4,10 @@ package com.kamron.pogoiv.logic;
 import com.google.common.base.Optional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import lombok.AllArgsConstructor;
 
@@ -17,8 +19,37 @@ import lombok.AllArgsConstructor;
 public class PokemonNameCorrector {
     private final PokeInfoCalculator pokeInfoCalculator;
 
+    /**
+     * Evolution lines indexed by the pokemon whose name appears on their candy. Built once, since name correction
+     * runs on every scan.
+     */
+    private final Map<Pokemon, EvolutionLine> evolutionLinesByCandy = new HashMap<>();
+
+    /**
+     * Eevee evolutions indexed by the type text the OCR reads for them.
+     */
+    private final Map<String, Pokemon> eeveelutionsByType = new HashMap<>();
+
     public PokemonNameCorrector(PokeInfoCalculator pokeInfoCalculator) {
         this.pokeInfoCalculator = pokeInfoCalculator;
+
+        for (Pokemon candyPokemon : pokeInfoCalculator.getCandyPokemons()) {
+            if (!evolutionLinesByCandy.containsKey(candyPokemon)) {
+                evolutionLinesByCandy.put(candyPokemon,
+                        new EvolutionLine(pokeInfoCalculator.getEvolutionLine(candyPokemon)));
+            }
+        }
+
+        // It might be good to move this to a resource at some point
+        eeveelutionsByType.put("WATER", pokeInfoCalculator.get(133)); //Vaporeon
+        eeveelutionsByType.put("ELECTRIC", pokeInfoCalculator.get(134)); //Jolteon
+        eeveelutionsByType.put("FIRE", pokeInfoCalculator.get(135)); //Flareon
+        eeveelutionsByType.put("PSYCHIC", pokeInfoCalculator.get(195)); //Espeon
+        eeveelutionsByType.put("DARK", pokeInfoCalculator.get(196)); //Umbreon
+        // Preparing for the future....
+        // eeveelutionsByType.put("GRASS", pokeInfoCalculator.get(469)); //Leafeon
+        // eeveelutionsByType.put("ICE", pokeInfoCalculator.get(470)); //Glaceon
+        // eeveelutionsByType.put("FAIRY", pokeInfoCalculator.get(699)); //Sylveon
     }
 
     /**
@@ -39,7 +70,7 @@ public class PokemonNameCorrector {
      */
     public PokeDist getPossiblePokemon(String poketext, String candytext, Optional<Integer> candyUpgradeCost,
                                        String pokemonType) {
-        ArrayList<Pokemon> bestGuessEvolutionLine = null;
+        List<Pokemon> bestGuessEvolutionLine = null;
         PokeDist guess;
 
         //1. Check if nickname perfectly matches a pokemon (which means pokemon is probably not renamed)
@@ -47,10 +78,11 @@ public class PokemonNameCorrector {
 
         //2. See if we can get a perfect match with candy name & upgrade cost
         if (guess.pokemon == null) {
-            bestGuessEvolutionLine = getBestGuessForEvolutionLine(candytext);
+            EvolutionLine evolutionLine = getBestGuessForEvolutionLine(candytext);
+            bestGuessEvolutionLine = evolutionLine.pokemons;
 
-            ArrayList<Pokemon> candyNameEvolutionCostGuess =
-                    getCandyNameEvolutionCostGuess(bestGuessEvolutionLine, candyUpgradeCost);
+            List<Pokemon> candyNameEvolutionCostGuess =
+                    getCandyNameEvolutionCostGuess(evolutionLine, candyUpgradeCost);
             if (candyNameEvolutionCostGuess != null) {
                 if (candyNameEvolutionCostGuess.size() == 1) {
                     //we have only one guess this is the one
@@ -65,20 +97,9 @@ public class PokemonNameCorrector {
 
         //3.  check correction for Eevee’s Evolution using it's Pokemon Type
         if (guess.pokemon == null && candytext.equals("EEVEE")) {
-            HashMap<String, String> eeveelutionCorrection = new HashMap<>();
-            // It might be good to move this to a resource at some point
-            eeveelutionCorrection.put("WATER", pokeInfoCalculator.get(133).name); //Vaporeon
-            eeveelutionCorrection.put("ELECTRIC", pokeInfoCalculator.get(134).name); //Jolteon
-            eeveelutionCorrection.put("FIRE", pokeInfoCalculator.get(135).name); //Flareon
-            eeveelutionCorrection.put("PSYCHIC", pokeInfoCalculator.get(195).name); //Espeon
-            eeveelutionCorrection.put("DARK", pokeInfoCalculator.get(196).name); //Umbreon
-            // Preparing for the future....
-            // eeveelutionCorrection.put("GRASS", pokeInfoCalculator.get(469).name); //Leafeon
-            // eeveelutionCorrection.put("ICE", pokeInfoCalculator.get(470).name); //Glaceon
-            // eeveelutionCorrection.put("FAIRY", pokeInfoCalculator.get(699).name); //Sylveon
-            if (eeveelutionCorrection.containsKey(pokemonType)) {
-                poketext = eeveelutionCorrection.get(pokemonType);
-                guess = new PokeDist(pokeInfoCalculator.get(poketext), 0);
+            Pokemon eeveelution = eeveelutionsByType.get(pokemonType);
+            if (eeveelution != null) {
+                guess = new PokeDist(eeveelution, 0);
             }
         }
 
@@ -103,18 +124,17 @@ public class PokemonNameCorrector {
      *
      * @param bestGuessEvolutionLine The evolution line guessed from the candy name
      * @param evolutionCost          the scanned cost to evolve the pokemon
-     * @return a pokemon that perfectly matches the input, or null if no match was found
+     * @return the pokemon in the line that match the evolution cost (possibly none), or null if the cost is unknown
      */
-    private ArrayList<Pokemon> getCandyNameEvolutionCostGuess(ArrayList<Pokemon> bestGuessEvolutionLine,
-                                                              Optional<Integer> evolutionCost) {
+    private List<Pokemon> getCandyNameEvolutionCostGuess(EvolutionLine bestGuessEvolutionLine,
+                                                         Optional<Integer> evolutionCost) {
         if (evolutionCost.isPresent()) {
-            ArrayList<Pokemon> PokemonValidOptions = new ArrayList<Pokemon>();
-            for (Pokemon pokemon : bestGuessEvolutionLine) {
-                if (evolutionCost.get().equals(pokemon.candyEvolutionCost)) {
-                    PokemonValidOptions.add(pokemon);
-                }
+            List<Pokemon> pokemonValidOptions =
+                    bestGuessEvolutionLine.pokemonsByEvolutionCost.get(evolutionCost.get());
+            if (pokemonValidOptions == null) {
+                return Collections.emptyList();
             }
-            return PokemonValidOptions;
+            return pokemonValidOptions;
         }
 
         //evolution cost scan failed, or no match
@@ -123,7 +143,8 @@ public class PokemonNameCorrector {
 
     /**
      * A method which returns the best guess at which pokemon it is according to similarity with the nickname
-     * in the given pokemon list.
+     * in the given pokemon list. Common OCR confusions (like l/1 or rn/m) count less than other differences, and
+     * each candidate is only compared as far as it can still beat the best match so far.
      *
      * @param poketext the nickname to compare with
      * @param pokemons the pokemon list to search the nickname into.
@@ -131,16 +152,24 @@ public class PokemonNameCorrector {
      */
     private PokeDist getNicknameGuess(String poketext, List<Pokemon> pokemons) {
         //if there's no perfect match, get the pokemon that best matches the nickname within the best guess evo-line
+        String lowerCasePoketext = poketext.toLowerCase();
         Pokemon bestMatchPokemon = null;
         int lowestDist = Integer.MAX_VALUE;
         for (Pokemon trypoke : pokemons) {
-            int dist = trypoke.getDistanceCaseInsensitive(poketext);
+            int dist = trypoke.getOcrAwareDistance(lowerCasePoketext, lowestDist - 1);
             if (dist < lowestDist) {
                 bestMatchPokemon = trypoke;
                 lowestDist = dist;
+                if (dist == 0) {
+                    break; //can't do better than a perfect match
+                }
             }
         }
-        return new PokeDist(bestMatchPokemon, lowestDist);
+        if (bestMatchPokemon == null) {
+            return new PokeDist(null, lowestDist);
+        }
+        //Report the distance in whole edits, rounding up so that only perfect matches have distance 0.
+        return new PokeDist(bestMatchPokemon, (lowestDist + Data.EDIT_COST - 1) / Data.EDIT_COST);
     }
 
     /**
@@ -150,10 +179,43 @@ public class PokemonNameCorrector {
      * @param input the base evolution (ex weedle) to find a match for
      * @return an evolution line which the string best matches the base evolution pokemon name
      */
-    private ArrayList<Pokemon> getBestGuessForEvolutionLine(String input) {
-        //candy name will only ever match the base evolution, so search in getBasePokemons().
+    private EvolutionLine getBestGuessForEvolutionLine(String input) {
+        //try an exact candy name first, which is the common case when the OCR worked.
+        Pokemon candyPokemon = pokeInfoCalculator.get(input);
+        if (candyPokemon != null) {
+            EvolutionLine evolutionLine = evolutionLinesByCandy.get(candyPokemon);
+            if (evolutionLine != null) {
+                return evolutionLine;
+            }
+        }
+
+        //candy name will only ever match a candy pokemon, so search in getCandyPokemons().
         PokeDist bestMatch = getNicknameGuess(input, pokeInfoCalculator.getCandyPokemons());
-        return pokeInfoCalculator.getEvolutionLine(bestMatch.pokemon);
+        return evolutionLinesByCandy.get(bestMatch.pokemon);
+    }
+
+    /**
+     * An evolution line, with its pokemon also grouped by their candy evolution cost.
+     */
+    private static class EvolutionLine {
+        final List<Pokemon> pokemons;
+        final Map<Integer, List<Pokemon>> pokemonsByEvolutionCost = new HashMap<>();
+
+        EvolutionLine(List<Pokemon> pokemons) {
+            this.pokemons = Collections.unmodifiableList(pokemons);
+            Map<Integer, List<Pokemon>> grouped = new HashMap<>();
+            for (Pokemon pokemon : pokemons) {
+                List<Pokemon> sameCost = grouped.get(pokemon.candyEvolutionCost);
+                if (sameCost == null) {
+                    sameCost = new ArrayList<>();
+                    grouped.put(pokemon.candyEvolutionCost, sameCost);
+                }
+                sameCost.add(pokemon);
+            }
+            for (Map.Entry<Integer, List<Pokemon>> entry : grouped.entrySet()) {
+                pokemonsByEvolutionCost.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            }
+        }
     }
 
     /**
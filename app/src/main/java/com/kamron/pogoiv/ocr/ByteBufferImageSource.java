@@ -0,0 +1,94 @@
+package com.kamron.pogoiv.ocr;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An ImageSource reading RGBA_8888 pixels from a buffer laid out like a plane of an android.media.Image, so a screen
+ * capture can be scanned without first converting it to a Bitmap. Regions share the buffer of the image they are
+ * taken from.
+ */
+public class ByteBufferImageSource implements ImageSource {
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int pixelStride;
+    private final int rowStride;
+    private final int width;
+    private final int height;
+
+    /**
+     * Create an image reading the given buffer from its position, which the image does not modify.
+     *
+     * @param buffer      the pixels, as 4 bytes R, G, B, A each
+     * @param width       the width of the image
+     * @param height      the height of the image
+     * @param pixelStride the distance in bytes between two pixels of a row
+     * @param rowStride   the distance in bytes between the start of two rows
+     */
+    public ByteBufferImageSource(ByteBuffer buffer, int width, int height, int pixelStride, int rowStride) {
+        this(buffer.duplicate().order(ByteOrder.BIG_ENDIAN), buffer.position(), width, height, pixelStride,
+                rowStride);
+    }
+
+    private ByteBufferImageSource(ByteBuffer buffer, int offset, int width, int height, int pixelStride,
+                                  int rowStride) {
+        if (pixelStride < 4 || (height > 0 && width > 0
+                && offset + (height - 1) * rowStride + (width - 1) * pixelStride + 4 > buffer.limit())) {
+            throw new IllegalArgumentException("Image of " + width + "x" + height + " does not fit in buffer of "
+                    + buffer.limit() + " bytes");
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        this.pixelStride = pixelStride;
+        this.rowStride = rowStride;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        checkBounds(x, y, 1, 1);
+        return rgbaToArgb(buffer.getInt(offset + y * rowStride + x * pixelStride));
+    }
+
+    @Override
+    public void getPixels(int[] pixels, int pixelsOffset, int stride, int x, int y, int width, int height) {
+        checkBounds(x, y, width, height);
+        for (int row = 0; row < height; row++) {
+            int src = offset + (y + row) * rowStride + x * pixelStride;
+            int dst = pixelsOffset + row * stride;
+            for (int column = 0; column < width; column++) {
+                pixels[dst + column] = rgbaToArgb(buffer.getInt(src));
+                src += pixelStride;
+            }
+        }
+    }
+
+    @Override
+    public ImageSource getRegion(int x, int y, int width, int height) {
+        checkBounds(x, y, width, height);
+        return new ByteBufferImageSource(buffer, offset + y * rowStride + x * pixelStride, width, height,
+                pixelStride, rowStride);
+    }
+
+    private static int rgbaToArgb(int rgba) {
+        return (rgba >>> 8) | (rgba << 24);
+    }
+
+    private void checkBounds(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Rectangle " + x + "," + y + " " + width + "x" + height
+                    + " is outside of image of " + this.width + "x" + this.height);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * A source of ARGB pixels, such as a screenshot or a part of it, which the scanning logic reads without knowing
+ * whether it comes from an Android Bitmap or from an image loaded on the JVM.
+ */
+public interface ImageSource {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Get the color of a single pixel.
+     *
+     * @param x horizontal coordinate of the pixel
+     * @param y vertical coordinate of the pixel
+     * @return the ARGB color of the pixel.
+     */
+    int getPixel(int x, int y);
+
+    /**
+     * Copy the ARGB colors of a rectangle of this image into the given array, with the same semantics as
+     * android.graphics.Bitmap.getPixels.
+     *
+     * @param pixels the array to receive the colors
+     * @param offset the first index to write into pixels
+     * @param stride the number of entries in pixels to skip between rows
+     * @param x      horizontal coordinate of the first pixel to read
+     * @param y      vertical coordinate of the first pixel to read
+     * @param width  the number of pixels to read from each row
+     * @param height the number of rows to read
+     */
+    void getPixels(int[] pixels, int offset, int stride, int x, int y, int width, int height);
+
+    /**
+     * Get a rectangular part of this image.
+     *
+     * @param x      horizontal coordinate of the top left corner of the region
+     * @param y      vertical coordinate of the top left corner of the region
+     * @param width  width of the region
+     * @param height height of the region
+     * @return the region, with coordinates relative to its top left corner.
+     */
+    ImageSource getRegion(int x, int y, int width, int height);
+}
@@ -0,0 +1,196 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * Color helpers and image preprocessing used before handing images to the OCR, working on ImageSource so they don't
+ * depend on android.graphics.
+ */
+public final class ImageUtil {
+    public static final int BLACK = 0xFF000000;
+    public static final int WHITE = 0xFFFFFFFF;
+
+    private static final int TRIM_MARGIN = 4;
+
+    private ImageUtil() {
+    }
+
+    public static int red(int color) {
+        return (color >> 16) & 0xFF;
+    }
+
+    public static int green(int color) {
+        return (color >> 8) & 0xFF;
+    }
+
+    public static int blue(int color) {
+        return color & 0xFF;
+    }
+
+    /**
+     * Return an opaque color from red, green and blue components between 0 and 255.
+     */
+    public static int rgb(int red, int green, int blue) {
+        return 0xFF000000 | (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Replaces colors in an image that are not farther away from a specific color than a given
+     * threshold.
+     *
+     * @param src          The source image to scan.
+     * @param keepCr       The red color to keep
+     * @param keepCg       The green color to keep
+     * @param keepCb       The blue color to keep
+     * @param replaceColor The color to replace mismatched colors with
+     * @param distance     The distance threshold.
+     * @param simpleBG     Whether the image has a simple background
+     * @return A new image with replaced colors
+     */
+    public static IntArrayImageSource replaceColors(ImageSource src, int keepCr, int keepCg, int keepCb,
+                                                    int replaceColor, int distance, boolean simpleBG) {
+        int width = src.getWidth();
+        int height = src.getHeight();
+        int[] allpixels = new int[height * width];
+        src.getPixels(allpixels, 0, width, 0, 0, width, height);
+        int bgColor = replaceColor;
+        int distanceSq = distance * distance;
+
+        if (simpleBG) {
+            bgColor = allpixels[0];
+        }
+
+        for (int i = 0; i < allpixels.length; i++) {
+            /* Avoid unnecessary math for obviously background color. This removes most of the math
+             * for candy, HP and name bitmaps. */
+            if (allpixels[i] == bgColor) {
+                allpixels[i] = replaceColor;
+                continue;
+            }
+            int rDiff = keepCr - red(allpixels[i]);
+            int gDiff = keepCg - green(allpixels[i]);
+            int bDiff = keepCb - blue(allpixels[i]);
+            int dSq = rDiff * rDiff + gDiff * gDiff + bDiff * bDiff;
+            if (dSq > distanceSq) {
+                allpixels[i] = replaceColor;
+            }
+        }
+
+        return new IntArrayImageSource(allpixels, width, height);
+    }
+
+    /**
+     * Heuristic method to determine if the image looks empty. Works by taking a horisontal row of pixels from he
+     * middle, and looks if they're all pure white.
+     *
+     * @param refinedImage A pre-processed image of the evolution cost. (should be pre-refined to replace all non
+     *                     text colors with pure white)
+     * @return true if the image is likely only white
+     */
+    public static boolean isOnlyWhite(ImageSource refinedImage) {
+        int[] pixelArray = new int[refinedImage.getWidth()];
+
+        //below code takes one line of pixels in the middle of the pixture from left to right
+        refinedImage.getPixels(pixelArray, 0, refinedImage.getWidth(), 0, refinedImage.getHeight() / 2,
+                refinedImage.getWidth(), 1);
+
+        for (int pixel : pixelArray) {
+            if (pixel != WHITE) { // if pixel is not white
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cut a preprocessed image down to the part which holds text, so the OCR doesn't spend time on blank padding.
+     * The bounds are found from the projection profiles of the image: the rows and the columns which have at least
+     * one pixel other than the background. TRIM_MARGIN pixels of background are kept around the text, as tesseract
+     * reads characters touching the border poorly.
+     *
+     * @param image      An image where everything but the text was replaced by the background color.
+     * @param background The color everything but the text was replaced with.
+     * @return The region of the image holding the text, or null if the image is only background.
+     */
+    public static ImageSource trimToContent(ImageSource image, int background) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        int left = width;
+        int right = -1;
+        int top = -1;
+        int bottom = -1;
+        for (int y = 0; y < height; y++) {
+            image.getPixels(row, 0, width, 0, y, width, 1);
+            int rowLeft = 0;
+            while (rowLeft < width && row[rowLeft] == background) {
+                rowLeft++;
+            }
+            if (rowLeft == width) {
+                continue;
+            }
+            int rowRight = width - 1;
+            while (row[rowRight] == background) {
+                rowRight--;
+            }
+            if (top == -1) {
+                top = y;
+            }
+            bottom = y;
+            left = Math.min(left, rowLeft);
+            right = Math.max(right, rowRight);
+        }
+        if (top == -1) {
+            return null;
+        }
+
+        left = Math.max(0, left - TRIM_MARGIN);
+        top = Math.max(0, top - TRIM_MARGIN);
+        right = Math.min(width - 1, right + TRIM_MARGIN);
+        bottom = Math.min(height - 1, bottom + TRIM_MARGIN);
+        if (left == 0 && top == 0 && right == width - 1 && bottom == height - 1) {
+            return image;
+        }
+        return image.getRegion(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    /**
+     * Convert an image to 8 bit grey, the format handed to the OCR: a quarter of the bytes of ARGB, and the luminance
+     * is all the OCR looks at anyway. The text pixels kept by replaceColors still have their anti-aliased shades, which
+     * the thresholding of the OCR uses, so the image isn't binarized here.
+     *
+     * @param image The image to convert.
+     * @return One byte per pixel, row after row, from 0 for black to 255 for white.
+     */
+    public static byte[] toGrey(ImageSource image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        byte[] grey = new byte[width * height];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getPixels(row, 0, width, 0, y, width, 1);
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = row[x];
+                // ITU-R BT.601 luma in 8 bit fixed point, the weights add up to 256.
+                grey[offset + x] = (byte) ((77 * red(pixel) + 150 * green(pixel) + 29 * blue(pixel)) >> 8);
+            }
+        }
+        return grey;
+    }
+
+    /**
+     * Get the hashcode for an image, used as key of the OCR caches. It is the hex string of
+     * java.util.Arrays.hashCode of all the pixels, row after row, but computed without copying the whole image.
+     */
+    public static String hashImage(ImageSource image) {
+        int width = image.getWidth();
+        int[] row = new int[width];
+        int hash = 1;
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.getPixels(row, 0, width, 0, y, width, 1);
+            for (int pixel : row) {
+                hash = 31 * hash + pixel;
+            }
+        }
+        return Integer.toHexString(hash);
+    }
+}
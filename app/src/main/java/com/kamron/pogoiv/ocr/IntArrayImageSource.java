@@ -0,0 +1,73 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * An ImageSource backed by an array of ARGB colors. Regions share the array of the image they are taken from.
+ */
+public class IntArrayImageSource implements ImageSource {
+    private final int[] pixels;
+    private final int offset;
+    private final int stride;
+    private final int width;
+    private final int height;
+
+    /**
+     * Create an image from an array of ARGB colors, stored row after row.
+     *
+     * @param pixels the colors of the image
+     * @param width  the width of the image
+     * @param height the height of the image
+     */
+    public IntArrayImageSource(int[] pixels, int width, int height) {
+        this(pixels, 0, width, width, height);
+    }
+
+    private IntArrayImageSource(int[] pixels, int offset, int stride, int width, int height) {
+        if (width < 0 || height < 0 || offset < 0 || (height > 0 && offset + (height - 1) * stride + width
+                > pixels.length)) {
+            throw new IllegalArgumentException("Image of " + width + "x" + height + " does not fit in "
+                    + pixels.length + " pixels");
+        }
+        this.pixels = pixels;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        checkBounds(x, y, 1, 1);
+        return pixels[offset + y * stride + x];
+    }
+
+    @Override
+    public void getPixels(int[] dst, int dstOffset, int dstStride, int x, int y, int width, int height) {
+        checkBounds(x, y, width, height);
+        for (int row = 0; row < height; row++) {
+            System.arraycopy(pixels, offset + (y + row) * stride + x, dst, dstOffset + row * dstStride, width);
+        }
+    }
+
+    @Override
+    public ImageSource getRegion(int x, int y, int width, int height) {
+        checkBounds(x, y, width, height);
+        return new IntArrayImageSource(pixels, offset + y * stride + x, stride, width, height);
+    }
+
+    private void checkBounds(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width < 0 || height < 0 || x + width > this.width || y + height > this.height) {
+            throw new IllegalArgumentException("Rectangle " + x + "," + y + " " + width + "x" + height
+                    + " is outside of image of " + this.width + "x" + this.height);
+        }
+    }
+}
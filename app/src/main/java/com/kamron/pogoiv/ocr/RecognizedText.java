@@ -0,0 +1,112 @@
+package com.kamron.pogoiv.ocr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Text read by a TextRecognizer, with the characters the engine hesitated between at each position. The
+ * alternatives let VocabularyDecoder check known words against everything the engine considered, rather than against
+ * its single best reading.
+ */
+public final class RecognizedText {
+
+    /**
+     * The reading of a blank image.
+     */
+    public static final RecognizedText EMPTY = new RecognizedText("", Collections.<Symbol>emptyList());
+
+    /**
+     * The best reading of the engine, as TextRecognizer.recognize returns it.
+     */
+    public final String text;
+
+    /**
+     * The characters read, in reading order, without the spaces between words.
+     */
+    public final List<Symbol> symbols;
+
+    public RecognizedText(String text, List<Symbol> symbols) {
+        this.text = text;
+        this.symbols = Collections.unmodifiableList(new ArrayList<>(symbols));
+    }
+
+    /**
+     * Get the reading of an engine which has no alternatives to offer: every character of the text is certain.
+     *
+     * @param text The text read.
+     * @return The text, with one certain symbol per character other than whitespace.
+     */
+    public static RecognizedText certain(String text) {
+        List<Symbol> symbols = new ArrayList<>();
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                symbols.add(new Symbol(new String[]{String.valueOf(text.charAt(i))}, new double[]{100}));
+            }
+        }
+        return new RecognizedText(text, symbols);
+    }
+
+    /**
+     * Get this reading without its first or last word, like the word for candy of "PIDGEY CANDY". The symbols of the
+     * word are left out too, one per character of the word.
+     *
+     * @param first Whether to leave out the first word rather than the last.
+     * @return The reading without the word, or this reading if it has a single word.
+     */
+    public RecognizedText withoutWord(boolean first) {
+        String trimmed = text.trim();
+        int space = first ? trimmed.indexOf(' ') : trimmed.lastIndexOf(' ');
+        if (space == -1) {
+            return this;
+        }
+        String word = first ? trimmed.substring(0, space) : trimmed.substring(space + 1);
+        String rest = first ? trimmed.substring(space + 1) : trimmed.substring(0, space);
+        int wordSymbols = Math.min(certain(word).symbols.size(), symbols.size());
+        return new RecognizedText(rest, first
+                ? symbols.subList(wordSymbols, symbols.size())
+                : symbols.subList(0, symbols.size() - wordSymbols));
+    }
+
+    /**
+     * A character position of the text, with the characters the engine considered for it.
+     */
+    public static final class Symbol {
+        private final String[] choices;
+        private final double[] confidences;
+
+        /**
+         * Create a symbol from the choices of the engine.
+         *
+         * @param choices     The characters considered, best first.
+         * @param confidences The confidence of each choice, between 0 and 100.
+         */
+        public Symbol(String[] choices, double[] confidences) {
+            if (choices.length != confidences.length) {
+                throw new IllegalArgumentException(choices.length + " choices but " + confidences.length
+                        + " confidences");
+            }
+            this.choices = new String[choices.length];
+            for (int i = 0; i < choices.length; i++) {
+                this.choices[i] = choices[i].toLowerCase();
+            }
+            this.confidences = confidences.clone();
+        }
+
+        /**
+         * Get how confident the engine was that this symbol is a character, ignoring case.
+         *
+         * @param lowerCaseCharacter The character, in lower case.
+         * @return The confidence between 0 and 100, or -1 if the engine didn't consider the character.
+         */
+        public double getConfidence(char lowerCaseCharacter) {
+            double confidence = -1;
+            for (int i = 0; i < choices.length; i++) {
+                if (choices[i].length() == 1 && choices[i].charAt(0) == lowerCaseCharacter) {
+                    confidence = Math.max(confidence, confidences[i]);
+                }
+            }
+            return confidence;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * How the OCR engine is set up to read a kind of field of the screen. Each profile is bound to an engine of its own,
+ * configured once when the engine is created, so reading a field never changes how the next one is read. Limiting
+ * the characters to those a field can contain also leaves the engine fewer hypotheses to explore.
+ */
+public enum RecognizerProfile {
+
+    /**
+     * A line of any text, like the CP and HP with their localized labels, or the identifier row.
+     */
+    LINE(ScreenScanner.CHAR_WHITELIST, false, ImmutableMap.<String, String>of()),
+
+    /**
+     * A pokemon or candy name. Nicknames may contain digits, and nidoran names a gender sign. Tesseract keeps the
+     * alternatives of every character, which VocabularyDecoder matches the pokedex names against.
+     */
+    NAME("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789♀♂", false,
+            ImmutableMap.of("save_blob_choices", "T")),
+
+    /**
+     * One or two pokemon types, separated by a slash.
+     */
+    TYPE("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz/", false, ImmutableMap.<String, String>of()),
+
+    /**
+     * A number without any label, like the candy amount or the evolution cost.
+     */
+    NUMERIC("0123456789", false, ImmutableMap.of("classify_bln_numeric_mode", "1")),
+
+    /**
+     * The sentences of the appraisal, which can span several lines.
+     */
+    APPRAISAL(ScreenScanner.CHAR_WHITELIST, true, ImmutableMap.<String, String>of());
+
+    /**
+     * The only characters the engine may read.
+     */
+    public final String whitelist;
+
+    /**
+     * Whether the text is read as a block of lines rather than as a single line.
+     */
+    public final boolean singleBlock;
+
+    /**
+     * Other tesseract variables to set, by name.
+     */
+    public final Map<String, String> variables;
+
+    RecognizerProfile(String whitelist, boolean singleBlock, Map<String, String> variables) {
+        this.whitelist = whitelist;
+        this.singleBlock = singleBlock;
+        this.variables = variables;
+    }
+}
@@ -0,0 +1,759 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.kamron.pogoiv.logic.Data;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.Pokemon;
+import com.kamron.pogoiv.logic.ScanResult;
+import com.kamron.pogoiv.tracing.ScanTracer;
+import com.kamron.pogoiv.tracing.Stage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Extracts the information visible on a screenshot of the pokemon screen. This is the platform independent part of
+ * OcrHelper: it reads pixels through ImageSource and text through a TextRecognizer, so it also runs on the JVM.
+ */
+public class ScreenScanner {
+
+    /**
+     * The characters the OCR engine is allowed to read in lines of any text, see RecognizerProfile.
+     */
+    public static final String CHAR_WHITELIST = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789/♀♂";
+
+    private static final int SCAN_CACHE_SIZE = 50;
+
+    /**
+     * How many candidate words to rank when decoding a name against the vocabulary.
+     */
+    private static final int VOCABULARY_MATCHES = 3;
+
+    private final TextRecognizer recognizer;
+    private final Cache<String, String> ocrCache = CacheBuilder.newBuilder()
+            .concurrencyLevel(1).maximumSize(200).build();
+    private final Cache<String, ScanResult> scanCache = CacheBuilder.newBuilder()
+            .concurrencyLevel(1).maximumSize(SCAN_CACHE_SIZE).build();
+    /**
+     * The fingerprint of the last scan of each pokemon, by hash of its identifier row.
+     */
+    private final Cache<String, String> lastFingerprints = CacheBuilder.newBuilder()
+            .concurrencyLevel(1).maximumSize(SCAN_CACHE_SIZE).build();
+    private final int heightPixels;
+    private final int widthPixels;
+    private final boolean s8patch;
+    private final boolean candyWordFirst;
+    private final String nidoFemale;
+    private final String nidoMale;
+    private final VocabularyDecoder pokemonNames;
+    private final VocabularyDecoder candyNames;
+    private final boolean isPokeSpamEnabled;
+
+    /**
+     * Create a scanner for the screenshots of a screen of the given size.
+     *
+     * @param recognizer        The OCR engine to read text with.
+     * @param widthPixels       Width of the screen.
+     * @param heightPixels      Height of the screen.
+     * @param nidoFemale        Name of the female nidoran.
+     * @param nidoMale          Name of the male nidoran.
+     * @param isPokeSpamEnabled Whether the candy amount needs to be scanned.
+     */
+    public ScreenScanner(TextRecognizer recognizer, int widthPixels, int heightPixels, String nidoFemale,
+                         String nidoMale, boolean isPokeSpamEnabled) {
+        this(recognizer, widthPixels, heightPixels, nidoFemale, nidoMale, VocabularyDecoder.EMPTY,
+                VocabularyDecoder.EMPTY, isPokeSpamEnabled);
+    }
+
+    /**
+     * Create a scanner which reads the pokemon and candy names against the pokedex of the current language: a name
+     * the OCR confidently read as a pokedex name is returned as spelled in the pokedex, with no need for the fuzzy
+     * matching of PokemonNameCorrector.
+     *
+     * @param recognizer         The OCR engine to read text with.
+     * @param widthPixels        Width of the screen.
+     * @param heightPixels       Height of the screen.
+     * @param pokeInfoCalculator The pokedex of the current language.
+     * @param isPokeSpamEnabled  Whether the candy amount needs to be scanned.
+     */
+    public ScreenScanner(TextRecognizer recognizer, int widthPixels, int heightPixels,
+                         PokeInfoCalculator pokeInfoCalculator, boolean isPokeSpamEnabled) {
+        this(recognizer, widthPixels, heightPixels, pokeInfoCalculator.get(28).name, pokeInfoCalculator.get(31).name,
+                new VocabularyDecoder(getNames(pokeInfoCalculator.getPokedex(), false)),
+                new VocabularyDecoder(getNames(pokeInfoCalculator.getCandyPokemons(), true)), isPokeSpamEnabled);
+    }
+
+    private ScreenScanner(TextRecognizer recognizer, int widthPixels, int heightPixels, String nidoFemale,
+                          String nidoMale, VocabularyDecoder pokemonNames, VocabularyDecoder candyNames,
+                          boolean isPokeSpamEnabled) {
+        this.recognizer = recognizer;
+        this.heightPixels = heightPixels;
+        this.widthPixels = widthPixels;
+        this.s8patch = Data.isExtraLongScreen(widthPixels, heightPixels);
+        this.candyWordFirst = isCandyWordFirst();
+        this.nidoFemale = nidoFemale;
+        this.nidoMale = nidoMale;
+        this.pokemonNames = pokemonNames;
+        this.candyNames = candyNames;
+        this.isPokeSpamEnabled = isPokeSpamEnabled;
+    }
+
+    /**
+     * Get the names of pokemons, in upper case like the candy names are shown on the screen if asked.
+     */
+    private static List<String> getNames(List<Pokemon> pokemons, boolean upperCase) {
+        List<String> names = new ArrayList<>(pokemons.size());
+        for (Pokemon pokemon : pokemons) {
+            names.add(upperCase ? pokemon.name.toUpperCase() : pokemon.name);
+        }
+        return names;
+    }
+
+    private static boolean isCandyWordFirst() {
+        //Check if language makes the pokemon name in candy second; France/Spain/Italy have Bonbon/Caramelos pokeName.
+        String language = Locale.getDefault().getLanguage();
+        HashSet<String> specialCandyOrderLangs = new HashSet<>(Arrays.asList("fr", "es", "it"));
+        return specialCandyOrderLangs.contains(language);
+    }
+
+    /**
+     * Get how many rows from the top of the screen a scan reads. The rows below, like the buttons at the bottom of the
+     * screen, may be left out of the image to scan.
+     *
+     * @return The height of the part of the screen which is read, at most the height of the screen.
+     */
+    public int getScannedHeight() {
+        // The evolution cost is the lowest crop.
+        int bottom = s8patch
+                ? (int) (widthPixels * 2.055555 * 0.74) + (int) (widthPixels * 2.055555 * 0.07)
+                : (int) (heightPixels * 0.88) + (int) (heightPixels * 0.03);
+        return Math.min(heightPixels, bottom + 1);
+    }
+
+    /**
+     * scanPokemon
+     * Performs OCR on an image of a pokemon and returns the pulled info.
+     * A pokemon scanned again with the same identifier row, CP, HP and name gets the result of its previous scan
+     * without any OCR. Scans which failed aren't remembered.
+     *
+     * @param pokemonImage The image of the pokemon
+     * @param trainerLevel Current level of the trainer
+     * @return an object
+     */
+    public ScanResult scanPokemon(ImageSource pokemonImage, int trainerLevel) {
+        long scanStart = ScanTracer.begin();
+        String identifierHash = ImageUtil.hashImage(getIdentifierCrop(pokemonImage));
+        String fingerprint = getScanFingerprint(pokemonImage, identifierHash, trainerLevel);
+        ScanResult memo = scanCache.getIfPresent(fingerprint);
+        ScanTracer.cacheLookup(Stage.OCR_SCAN, memo != null);
+        if (memo != null) {
+            ScanTracer.end(Stage.OCR_SCAN, scanStart);
+            return memo;
+        }
+
+        long start = ScanTracer.begin();
+        double estimatedPokemonLevel = getPokemonLevel(pokemonImage, trainerLevel);
+        start = endSpan(Stage.OCR_LEVEL, start);
+        String pokemonName = getPokemonName(pokemonImage);
+        start = endSpan(Stage.OCR_NAME, start);
+        String pokemonType = getPokemonType(pokemonImage);
+        start = endSpan(Stage.OCR_TYPE, start);
+        String candyName = getCandyName(pokemonImage);
+        start = endSpan(Stage.OCR_CANDY_NAME, start);
+        Optional<Integer> pokemonHP = getPokemonHP(pokemonImage);
+        start = endSpan(Stage.OCR_HP, start);
+        Optional<Integer> pokemonCP = getPokemonCP(pokemonImage);
+        start = endSpan(Stage.OCR_CP, start);
+        Optional<Integer> pokemonCandyAmount = getCandyAmount(pokemonImage);
+        start = endSpan(Stage.OCR_CANDY_AMOUNT, start);
+        Optional<Integer> pokemonUpgradeCost = getPokemonEvolutionCost(pokemonImage);
+        start = endSpan(Stage.OCR_EVOLUTION_COST, start);
+        String pokemonUniqueIdentifier = getPokemonIdentifier(pokemonImage);
+        ScanTracer.end(Stage.OCR_IDENTIFIER, start);
+        ScanTracer.end(Stage.OCR_SCAN, scanStart);
+
+        ScanResult result = new ScanResult(estimatedPokemonLevel, pokemonName, pokemonType, candyName, pokemonHP,
+                pokemonCP, pokemonCandyAmount, pokemonUpgradeCost, pokemonUniqueIdentifier);
+        if (!result.isFailed()) {
+            remember(identifierHash, fingerprint, result);
+        }
+        return result;
+    }
+
+    /**
+     * Remember the result of a scan, and forget the previous scan of the same pokemon: once its CP or HP changed, the
+     * old screen won't be seen again.
+     */
+    private void remember(String identifierHash, String fingerprint, ScanResult result) {
+        String lastFingerprint = lastFingerprints.getIfPresent(identifierHash);
+        if (lastFingerprint != null && !lastFingerprint.equals(fingerprint)) {
+            scanCache.invalidate(lastFingerprint);
+        }
+        lastFingerprints.put(identifierHash, fingerprint);
+        scanCache.put(fingerprint, result);
+    }
+
+    /**
+     * Read the text of a preprocessed image, trimmed to the text first. A blank image is read as empty without running
+     * the OCR at all.
+     *
+     * @param image      An image where everything but the text was replaced by the background color.
+     * @param background The color everything but the text was replaced with.
+     * @param profile    The kind of field the image shows.
+     * @return The recognized text, possibly empty.
+     */
+    private String recognizeText(ImageSource image, int background, RecognizerProfile profile) {
+        ImageSource text = ImageUtil.trimToContent(image, background);
+        return text == null ? "" : recognizer.recognize(text, profile);
+    }
+
+    /**
+     * Read the text of a preprocessed image like recognizeText, with the characters the OCR hesitated between.
+     */
+    private RecognizedText recognizeChoices(ImageSource image, int background, RecognizerProfile profile) {
+        ImageSource text = ImageUtil.trimToContent(image, background);
+        return text == null ? RecognizedText.EMPTY : recognizer.recognizeChoices(text, profile);
+    }
+
+    /**
+     * End a span and start the next one.
+     */
+    private static long endSpan(Stage stage, long start) {
+        ScanTracer.end(stage, start);
+        return ScanTracer.begin();
+    }
+
+    /**
+     * Scans the arc and tries to determine the pokemon level, returns 1 if nothing found.
+     * Data.setupArcPoints must have been called for the size of the screen.
+     *
+     * @param pokemonImage The image of the entire screen
+     * @param trainerLevel Current level of the trainer
+     * @return the estimated pokemon level, or 1 if nothing found
+     */
+    public double getPokemonLevel(ImageSource pokemonImage, int trainerLevel) {
+        double estimatedPokemonLevel = Data.trainerLevelToMaxPokeLevel(trainerLevel);
+        double previousEstPokemonLevel = estimatedPokemonLevel + 0.5; // Initial value out of range
+        int previousLevelDistance = -1; // Initial value indicating no found white pixels
+        for (double estPokemonLevel = estimatedPokemonLevel; estPokemonLevel >= 1.0; estPokemonLevel -= 0.5) {
+            int index = Data.levelToLevelIdx(estPokemonLevel);
+            int x = Data.arcX[index];
+            int y = Data.arcY[index];
+            int whiteLineDistance = getCardinalWhiteLineDist(pokemonImage, x, y);
+
+            // If we found a lower white line distance than our last calculation, last calculation was best match.
+            // If the actual level is 1.0, we fall out to the default case below the for loop.
+            if (whiteLineDistance < previousLevelDistance) {
+                return previousEstPokemonLevel;
+            }
+
+            // Have not passed the best match yet; store current values for next loop cycle
+            previousEstPokemonLevel = estPokemonLevel;
+            previousLevelDistance = whiteLineDistance;
+        }
+        return 1;
+    }
+
+    /**
+     * Examines the image from the given coordinates to determine the distance which is
+     * consistently white pixels in ALL cardinal directions. This helps identify the point
+     * closest to the center of the level indicator dot.
+     *
+     * @param pokemonImage The image of the entire screen
+     * @param x            Horizontal ordinate to scan from
+     * @param y            Vertical ordinate to scan from
+     * @return -1 if the given coordinate is not a white pixel, otherwise the distance from given
+     * coordinate which is white in each cardinal direction.
+     */
+    private static int getCardinalWhiteLineDist(ImageSource pokemonImage, int x, int y) {
+        // Base case of not matching
+        if (pokemonImage.getPixel(x, y) != ImageUtil.WHITE) {
+            return -1;
+        }
+
+        int d = 0; // Distance we have successfully searched for white pixels.
+        while (true) {
+            // If any pixel this distance is not white, return our successful search distance
+            if (pokemonImage.getPixel(x + d, y) != ImageUtil.WHITE
+                    || pokemonImage.getPixel(x - d, y) != ImageUtil.WHITE
+                    || pokemonImage.getPixel(x, y + d) != ImageUtil.WHITE
+                    || pokemonImage.getPixel(x, y - d) != ImageUtil.WHITE) {
+                return d;
+            }
+            d++;
+        }
+    }
+
+    /**
+     * Get the pokemon name as analysed from a pokemon image.
+     *
+     * @param pokemonImage the image of the whole screen
+     * @return A string resulting from the scan
+     */
+    public String getPokemonName(ImageSource pokemonImage) {
+        ImageSource name = getNameCrop(pokemonImage);
+        String hash = "name" + ImageUtil.hashImage(name);
+        String pokemonName = ocrCache.getIfPresent(hash);
+        ScanTracer.cacheLookup(Stage.OCR_NAME, pokemonName != null);
+
+        if (pokemonName == null) {
+            name = ImageUtil.replaceColors(name, 68, 105, 108, ImageUtil.WHITE, 200, true);
+            pokemonName = readPokemonName(name);
+            if (pokemonName.toLowerCase().contains("nidora")) {
+                pokemonName = getNidoranGenderName(pokemonImage);
+            }
+            ocrCache.put(hash, pokemonName);
+        }
+        return pokemonName;
+    }
+
+    /**
+     * Read a preprocessed pokemon name. A name the OCR may have read as exactly one pokedex name is that name, else
+     * the text read is cleaned up for PokemonNameCorrector to match.
+     */
+    private String readPokemonName(ImageSource name) {
+        if (pokemonNames.isEmpty()) {
+            return fixOcrNumsToLetters(recognizeText(name, ImageUtil.WHITE, RecognizerProfile.NAME).replace(" ", ""));
+        }
+        RecognizedText text = recognizeChoices(name, ImageUtil.WHITE, RecognizerProfile.NAME);
+        Optional<String> decoded = VocabularyDecoder.getConfidentWord(pokemonNames.decode(text, VOCABULARY_MATCHES));
+        return decoded.isPresent() ? decoded.get() : fixOcrNumsToLetters(text.text.replace(" ", ""));
+    }
+
+    /**
+     * Read a preprocessed candy name like "PIDGEY CANDY". The word for candy is cut from the text read, on the side
+     * the language puts it. If what's left may be exactly one pokedex name, that's the candy name; it must be the whole
+     * name, so "KABRA CANDY" isn't taken for the Abra in it. Else the text left is cleaned up for correction.
+     */
+    private String readCandyName(ImageSource candy) {
+        if (candyNames.isEmpty()) {
+            String candyText = recognizeText(candy, ImageUtil.WHITE, RecognizerProfile.NAME).trim().replace("-", " ");
+            return fixOcrNumsToLetters(removeFirstOrLastWord(candyText, candyWordFirst));
+        }
+        RecognizedText text = recognizeChoices(candy, ImageUtil.WHITE, RecognizerProfile.NAME);
+        Optional<String> decoded = VocabularyDecoder.getConfidentWord(
+                candyNames.decode(text.withoutWord(candyWordFirst), VOCABULARY_MATCHES));
+        if (decoded.isPresent()) {
+            return decoded.get();
+        }
+        return fixOcrNumsToLetters(removeFirstOrLastWord(text.text.trim().replace("-", " "), candyWordFirst));
+    }
+
+    /**
+     * Get the pokemon type(s) as analysed from a pokemon image.
+     *
+     * @param pokemonImage the image of the whole screen
+     * @return A string resulting from the scan
+     */
+    public String getPokemonType(ImageSource pokemonImage) {
+        ImageSource type = s8patch
+                ? getImageCropS8(pokemonImage, 0.365278, 0.53, 0.308333, 0.03)
+                : getImageCrop(pokemonImage, 0.365278, 0.621094, 0.308333, 0.035156);
+        String hash = "type" + ImageUtil.hashImage(type);
+        String pokemonType = ocrCache.getIfPresent(hash);
+        ScanTracer.cacheLookup(Stage.OCR_TYPE, pokemonType != null);
+
+        if (pokemonType == null) {
+            type = ImageUtil.replaceColors(type, 68, 105, 108, ImageUtil.WHITE, 200, true);
+            pokemonType = recognizeText(type, ImageUtil.WHITE, RecognizerProfile.TYPE);
+            ocrCache.put(hash, pokemonType);
+        }
+        return pokemonType;
+    }
+
+    /**
+     * Gets the candy name from a pokenon image.
+     *
+     * @param pokemonImage the image of the whole screen
+     * @return the candy name, or "" if nothing was found
+     */
+    public String getCandyName(ImageSource pokemonImage) {
+        ImageSource candy = s8patch
+                ? getImageCropS8(pokemonImage, 0.5, 0.62, 0.47, 0.036)
+                : getImageCrop(pokemonImage, 0.5, 0.73, 0.47, 0.026);
+        String hash = "candy" + ImageUtil.hashImage(candy);
+        String candyName = ocrCache.getIfPresent(hash);
+        ScanTracer.cacheLookup(Stage.OCR_CANDY_NAME, candyName != null);
+
+        if (candyName == null) {
+            candy = ImageUtil.replaceColors(candy, 68, 105, 108, ImageUtil.WHITE, 200, true);
+            candyName = readCandyName(candy);
+            if (candyName.toLowerCase().contains("nidora")) {
+                candyName = getNidoranGenderName(pokemonImage);
+            }
+            ocrCache.put(hash, candyName);
+        }
+        return candyName;
+    }
+
+    /**
+     * Get the pokemon hp from a picture.
+     *
+     * @param pokemonImage the image of the whole screen
+     * @return an integer of the interpreted pokemon name, 10 if scan failed
+     */
+    public Optional<Integer> getPokemonHP(ImageSource pokemonImage) {
+        ImageSource hp = getHpCrop(pokemonImage);
+        String hash = "hp" + ImageUtil.hashImage(hp);
+        String pokemonHPStr = ocrCache.getIfPresent(hash);
+        ScanTracer.cacheLookup(Stage.OCR_HP, pokemonHPStr != null);
+
+        if (pokemonHPStr == null) {
+            hp = ImageUtil.replaceColors(hp, 55, 66, 61, ImageUtil.WHITE, 200, true);
+            pokemonHPStr = recognizeText(hp, ImageUtil.WHITE, RecognizerProfile.LINE);
+            ocrCache.put(hash, pokemonHPStr);
+        }
+
+        if (pokemonHPStr.contains("/")) {
+            try {
+                //If "/" comes at the end we'll get an array with only one component.
+                String[] hpParts = pokemonHPStr.split("/");
+                String hpStr;
+                if (hpParts.length >= 2) {  //example read "30 / 55 hp"
+                    //Cant read part 0 because that changes if poke has low hp
+                    hpStr = hpParts[1];
+                    hpStr = hpStr.substring(0, hpStr.length() - 2); //Removes the two last chars, like "hp" or "ps"
+                } else if (hpParts.length == 1) { //Failed to read "/", example "30 7 55 hp"
+                    hpStr = hpParts[0];
+                    hpStr = hpStr.substring(0, hpStr.length() - 2); //Removes the two last chars, like "hp" or "ps"
+                } else {
+                    return Optional.absent();
+                }
+
+                return Optional.of(Integer.parseInt(fixOcrLettersToNums(hpStr)));
+            } catch (NumberFormatException e) {
+                //Fall-through to default.
+            }
+        }
+
+        return Optional.absent();
+    }
+
+    /**
+     * Get the CP of a pokemon image.
+     *
+     * @param pokemonImage the image of the whole pokemon screen
+     * @return a CP of the pokemon, 10 if scan failed
+     */
+    public Optional<Integer> getPokemonCP(ImageSource pokemonImage) {
+        ImageSource cp = ImageUtil.replaceColors(getCpCrop(pokemonImage), 255, 255, 255, ImageUtil.BLACK, 30, false);
+        String cpText = recognizeText(cp, ImageUtil.BLACK, RecognizerProfile.LINE);
+
+        /*
+         * Always remove the two first characters instead of non-numbers: the "CP" text is
+         * sometimes OCR'ed to something containing numbers (e.g. cp, cP, Cp, c3, s3, 73, 53 etc),
+         * depending on backgrounds/screen sizes, but it's always OCRed as two characters.
+         * This also appears true for translations.
+         */
+        if (cpText.length() >= 2) { //gastly can block the "cp" text, so its not visible...
+            cpText = cpText.substring(2); //remove "cp".
+        }
+
+        try {
+            return Optional.of(Integer.parseInt(fixOcrLettersToNums(cpText)));
+        } catch (NumberFormatException e) {
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * Gets the candy amount from a pokemon image, it will return absent if PokeSpam is disabled.
+     *
+     * @param pokemonImage the image of the whole screen
+     * @return candyAmount the candy amount, or blank Optional object if nothing was found
+     */
+    public Optional<Integer> getCandyAmount(ImageSource pokemonImage) {
+        if (!isPokeSpamEnabled) {
+            return Optional.absent();
+        }
+
+        ImageSource candyAmount = getCandyAmountCrop(pokemonImage);
+        String hash = "candyAmount" + ImageUtil.hashImage(candyAmount);
+        String pokemonCandyStr = ocrCache.getIfPresent(hash);
+        ScanTracer.cacheLookup(Stage.OCR_CANDY_AMOUNT, pokemonCandyStr != null);
+
+        if (pokemonCandyStr == null) {
+            candyAmount = ImageUtil.replaceColors(candyAmount, 68, 105, 108, ImageUtil.WHITE, 90, true);
+            pokemonCandyStr = recognizeText(candyAmount, ImageUtil.WHITE, RecognizerProfile.NUMERIC);
+            ocrCache.put(hash, pokemonCandyStr);
+        }
+
+        if (pokemonCandyStr.length() > 0) {
+            try {
+                return Optional.of(Integer.parseInt(fixOcrLettersToNums(pokemonCandyStr)));
+            } catch (NumberFormatException e) {
+                //Fall-through to default.
+            }
+        }
+
+        return Optional.absent();
+    }
+
+    /**
+     * Get the evolution cost for a pokemon, example, weedle: 12.
+     * If there was no detected upgrade cost, returns -1.
+     *
+     * @param pokemonImage The image of the full pokemon screen
+     * @return the evolution cost (or -1 if absent) wrapped in Optional.of(), or Optional.absent() on scan failure
+     */
+    public Optional<Integer> getPokemonEvolutionCost(ImageSource pokemonImage) {
+        ImageSource evolutionCostImage = s8patch
+                ? getImageCropS8(pokemonImage, 0.625, 0.74, 0.2, 0.07)
+                : getImageCrop(pokemonImage, 0.625, 0.88, 0.2, 0.03);
+        String hash = "candyCost" + ImageUtil.hashImage(evolutionCostImage);
+
+        //return cache if it exists
+        String stringCacheEvoCandyCost = ocrCache.getIfPresent(hash);
+        ScanTracer.cacheLookup(Stage.OCR_EVOLUTION_COST, stringCacheEvoCandyCost != null);
+        if (stringCacheEvoCandyCost != null) {
+            //XXX in the cache, we encode "no result" as an empty string. That's a hack.
+            if (stringCacheEvoCandyCost.isEmpty()) {
+                return Optional.absent();
+            } else {
+                return Optional.of(Integer.parseInt(stringCacheEvoCandyCost));
+            }
+        }
+        Optional<Integer> result = getPokemonEvolutionCostUncached(evolutionCostImage);
+        String ocrResult;
+        if (result.isPresent()) {
+            ocrResult = String.valueOf(result.get()); //Store error code instead of scanned value
+        } else {
+            //XXX again, in the cache, we encode "no result" as an empty string.
+            ocrResult = "";
+        }
+        ocrCache.put(hash, ocrResult);
+        return result;
+    }
+
+    /**
+     * Get the evolution cost for a pokemon, like getPokemonEvolutionCost, but without caching.
+     *
+     * @param evolutionCostImage The precut image of the evolution cost area.
+     * @return the evolution cost (or -1 if absent) wrapped in Optional.of(), or Optional.absent() on scan failure
+     */
+    private Optional<Integer> getPokemonEvolutionCostUncached(ImageSource evolutionCostImage) {
+        //clean the image
+        //the dark color used for text in pogo is approximately rgb 76,112,114 if you can afford evo
+        //and the red color is rgb 255 95 100 when you cant afford the evolution
+        ImageSource evolutionCostImageCanAfford = ImageUtil.replaceColors(evolutionCostImage, 68, 105, 108,
+                ImageUtil.WHITE, 30, false);
+        ImageSource evolutionCostImageCannotAfford = ImageUtil.replaceColors(evolutionCostImage, 255, 115, 115,
+                ImageUtil.WHITE, 40, false);
+
+        boolean affordIsBlank = ImageUtil.isOnlyWhite(evolutionCostImageCanAfford);
+        boolean cannotAffordIsBlank = ImageUtil.isOnlyWhite(evolutionCostImageCannotAfford);
+        //check if fully evolved
+        if (affordIsBlank && cannotAffordIsBlank) { //if there's no red or black text, there's no text at all.
+            return Optional.of(-1);
+        }
+
+        //use the correctly refined image (refined for red or black text)
+        if (affordIsBlank) {
+            evolutionCostImage = evolutionCostImageCannotAfford;
+        } else {
+            evolutionCostImage = evolutionCostImageCanAfford;
+        }
+
+        //If not cached or fully evolved, ocr text
+        int result;
+        String ocrResult = fixOcrLettersToNums(recognizeText(evolutionCostImage, ImageUtil.WHITE,
+                RecognizerProfile.NUMERIC));
+        try {
+            result = Integer.parseInt(ocrResult);
+            if (result == 10 || result == 1) { //second zero hidden behind floating button
+                result = 100;
+            } else if (result == 40 || result == 4) { //second zero hidden behind floating button
+                result = 400; //damn magikarp
+            } else if (result == 5) {
+                result = 50; //second zero hidden behind button
+            } else if (result == 2) {
+                result = 25; //5 hidden behind button
+            }
+            return Optional.of(result);
+        } catch (NumberFormatException e) {
+            return Optional.absent(); //could not ocr text
+        }
+    }
+
+    /**
+     * Get the unique identifier of a pokemon, aka even if you power up the pokemon, the result stays the same.
+     *
+     * @param pokemonImage the image of the whole pokemon screen
+     * @return a string which should remain the same even if you power up a pokemon
+     */
+    public String getPokemonIdentifier(ImageSource pokemonImage) {
+        return recognizer.recognize(getIdentifierCrop(pokemonImage), RecognizerProfile.LINE);
+    }
+
+    private ImageSource getNameCrop(ImageSource pokemonImage) {
+        return s8patch
+                ? getImageCropS8(pokemonImage, 0.1, 0.38, 0.85, 0.055)
+                : getImageCrop(pokemonImage, 0.1, 0.45, 0.85, 0.055);
+    }
+
+    private ImageSource getHpCrop(ImageSource pokemonImage) {
+        return s8patch
+                ? getImageCropS8(pokemonImage, 0.357, 0.45, 0.285, 0.025)
+                : getImageCrop(pokemonImage, 0.357, 0.52, 0.285, 0.0293);
+    }
+
+    private ImageSource getCpCrop(ImageSource pokemonImage) {
+        return s8patch
+                ? getImageCropS8(pokemonImage, 0.25, 0.05, 0.5, 0.046)
+                : getImageCrop(pokemonImage, 0.25, 0.064, 0.5, 0.046);
+    }
+
+    private ImageSource getCandyAmountCrop(ImageSource pokemonImage) {
+        return s8patch
+                ? getImageCropS8(pokemonImage, 0.59, 0.60, 0.20, 0.038)
+                : getImageCrop(pokemonImage, 0.60, 0.695, 0.20, 0.038);
+    }
+
+    private ImageSource getIdentifierCrop(ImageSource pokemonImage) {
+        return pokemonImage.getRegion(
+                Math.round(widthPixels * .1f), Math.round(heightPixels / 1.714286f),
+                Math.round(widthPixels * .8f), Math.round(heightPixels / 25.26316f));
+    }
+
+    /**
+     * Get a fingerprint of the strips of the screen which tell a pokemon apart and change when it's powered up or
+     * healed: the identifier row, CP, HP and name, plus the candy amount when it's scanned. scanPokemon returns the
+     * same result for screens with the same fingerprint. This only hashes pixels, it doesn't run any OCR.
+     *
+     * @param pokemonImage The image of the whole pokemon screen.
+     * @param trainerLevel Current level of the trainer.
+     * @return The fingerprint.
+     */
+    public String getScanFingerprint(ImageSource pokemonImage, int trainerLevel) {
+        return getScanFingerprint(pokemonImage, ImageUtil.hashImage(getIdentifierCrop(pokemonImage)), trainerLevel);
+    }
+
+    private String getScanFingerprint(ImageSource pokemonImage, String identifierHash, int trainerLevel) {
+        StringBuilder fingerprint = new StringBuilder(identifierHash)
+                .append(':').append(ImageUtil.hashImage(getCpCrop(pokemonImage)))
+                .append(':').append(ImageUtil.hashImage(getHpCrop(pokemonImage)))
+                .append(':').append(ImageUtil.hashImage(getNameCrop(pokemonImage)))
+                .append(':').append(trainerLevel);
+        if (isPokeSpamEnabled) {
+            fingerprint.append(':').append(ImageUtil.hashImage(getCandyAmountCrop(pokemonImage)));
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Dont missgender the poor nidorans.
+     * <p/>
+     * Takes a subportion of the screen, and averages the color to check the average values and compares to known
+     * male / female average
+     *
+     * @param pokemonImage The screenshot of the entire application
+     * @return True if the nidoran is female
+     */
+    private boolean isNidoranFemale(ImageSource pokemonImage) {
+        ImageSource pokemon = getImageCrop(pokemonImage, 0.33, 0.25, 0.33, 0.2);
+        int[] pixelArray = new int[pokemon.getHeight() * pokemon.getWidth()];
+        pokemon.getPixels(pixelArray, 0, pokemon.getWidth(), 0, 0, pokemon.getWidth(), pokemon.getHeight());
+        int greenSum = 0;
+        int blueSum = 0;
+
+        // a loop that sums the color values of all the pixels in the image of the nidoran
+        for (int pixel : pixelArray) {
+            blueSum += ImageUtil.green(pixel);
+            greenSum += ImageUtil.blue(pixel);
+        }
+        int greenAverage = greenSum / pixelArray.length;
+        int blueAverage = blueSum / pixelArray.length;
+        //Average male nidoran has RGB value ~~ 136,165,117
+        //Average female nidoran has RGB value~ 135,190,140
+        int femaleGreenLimit = 175; //if average green is over 175, its probably female
+        int femaleBlueLimit = 130; //if average blue is over 130, its probably female
+        boolean isFemale = true;
+        if (greenAverage < femaleGreenLimit && blueAverage < femaleBlueLimit) {
+            isFemale = false; //if neither average is above the female limit, then it's male.
+        }
+        return isFemale;
+    }
+
+    /**
+     * Get the correctly gendered name of a pokemon.
+     *
+     * @param pokemonImage The image of the nidoranX.
+     * @return The correct name of the pokemon, with the gender symbol at the end.
+     */
+    private String getNidoranGenderName(ImageSource pokemonImage) {
+        if (isNidoranFemale(pokemonImage)) {
+            return nidoFemale;
+        } else {
+            return nidoMale;
+        }
+    }
+
+    /**
+     * Get a cropped version of your image.
+     *
+     * @param img     Which image to crop
+     * @param xStart  % of how far in the top left corner of the crop should be x coordinate
+     * @param yStart  % of how far in the top left corner of the crop should be y coordinate
+     * @param xWidth  how many % of the width should be kept starting from the xstart.
+     * @param yHeight how many % of the height should be kept starting from the ystart.
+     * @return The crop of the image.
+     */
+    public ImageSource getImageCrop(ImageSource img, double xStart, double yStart, double xWidth, double yHeight) {
+        return img.getRegion((int) (widthPixels * xStart), (int) (heightPixels * yStart),
+                (int) (widthPixels * xWidth), (int) (heightPixels * yHeight));
+    }
+
+    /**
+     * Get a cropped version of your image, specific to the S8. This method forcefully includes the
+     * bottom nav-bar of the S8 in the resolution and height calculations, so that the s8 and s8+ can
+     * use the same percentages
+     *
+     * @param img     Which image to crop
+     * @param xStart  % of how far in the top left corner of the crop should be x coordinate
+     * @param yStart  % of how far in the top left corner of the crop should be y coordinate
+     * @param xWidth  how many % of the width should be kept starting from the xstart.
+     * @param yHeight how many % of the height should be kept starting from the ystart.
+     * @return The crop of the image.
+     */
+    private ImageSource getImageCropS8(ImageSource img, double xStart, double yStart, double xWidth,
+                                       double yHeight) {
+        int s8Screenheight = (int) (img.getWidth() * 2.055555);
+        return img.getRegion((int) (widthPixels * xStart), (int) (s8Screenheight * yStart),
+                (int) (widthPixels * xWidth), (int) (s8Screenheight * yHeight));
+    }
+
+    private static String removeFirstOrLastWord(String src, boolean removeFirst) {
+        if (removeFirst) {
+            int fstSpace = src.indexOf(' ');
+            if (fstSpace != -1) {
+                return src.substring(fstSpace + 1);
+            }
+        } else {
+            int lstSpace = src.lastIndexOf(' ');
+            if (lstSpace != -1) {
+                return src.substring(0, lstSpace);
+            }
+        }
+        return src;
+    }
+
+    /**
+     * Correct some OCR errors in argument where only letters are expected.
+     */
+    private static String fixOcrNumsToLetters(String src) {
+        return src.replace("1", "l").replace("0", "o").replace("5", "s").replace("2", "z");
+    }
+
+    /**
+     * Correct some OCR errors in argument where only numbers are expected.
+     */
+    private static String fixOcrLettersToNums(String src) {
+        return src.replace("S", "5").replace("s", "5").replace("O", "0").replace("B", "8").replace("o",
+                "0").replace("l", "1").replace("I", "1").replace("i", "1").replace("Z", "2").replaceAll("[^0-9]", "");
+    }
+}
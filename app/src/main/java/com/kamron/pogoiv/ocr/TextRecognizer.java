@@ -0,0 +1,27 @@
+package com.kamron.pogoiv.ocr;
+
+/**
+ * The OCR engine reading the text in a preprocessed part of the screen. On the phone this is tesseract through
+ * tess-two, other implementations allow running the scanning logic on the JVM.
+ */
+public interface TextRecognizer {
+
+    /**
+     * Read the text in an image.
+     *
+     * @param image   the image to read
+     * @param profile the kind of field the image shows, which tells which engine setup to read it with
+     * @return the recognized text, possibly empty.
+     */
+    String recognize(ImageSource image, RecognizerProfile profile);
+
+    /**
+     * Read the text in an image, with the characters the engine considered at each position, for VocabularyDecoder.
+     * An engine which doesn't report alternatives returns RecognizedText.certain of its reading.
+     *
+     * @param image   the image to read
+     * @param profile the kind of field the image shows
+     * @return the recognized text and its alternatives, possibly empty.
+     */
+    RecognizedText recognizeChoices(ImageSource image, RecognizerProfile profile);
+}
@@ -0,0 +1,167 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.base.Optional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Decodes the reading of a field which can only hold a few known words, like the pokemon names or the candy names of
+ * the current language. A word matches the reading when each of its characters is among the characters the OCR
+ * considered at that position, and scores the average confidence of the OCR in those characters. A confident match
+ * makes fuzzy matching of the text unnecessary.
+ * <p/>
+ * Words are compared in lower case and without the characters the OCR isn't allowed to read, so "Mr. Mime" is
+ * matched as "mrmime".
+ */
+public final class VocabularyDecoder {
+
+    /**
+     * A decoder without any word, which never finds a match.
+     */
+    public static final VocabularyDecoder EMPTY = new VocabularyDecoder(Collections.<String>emptyList());
+
+    /**
+     * The lowest score of a confident match.
+     */
+    private static final double CONFIDENT_SCORE = 60;
+
+    /**
+     * How much a confident match must score above the next match of the same length.
+     */
+    private static final double CONFIDENT_MARGIN = 10;
+
+    private static final Comparator<Match> BEST_FIRST = new Comparator<Match>() {
+        @Override
+        public int compare(Match lhs, Match rhs) {
+            if (lhs.length != rhs.length) {
+                return rhs.length - lhs.length;
+            }
+            return Double.compare(rhs.score, lhs.score);
+        }
+    };
+
+    private final String[] words;
+    private final String[] keys;
+
+    /**
+     * Create a decoder for a vocabulary.
+     *
+     * @param words The words the field can hold, as they should be returned.
+     */
+    public VocabularyDecoder(Collection<String> words) {
+        List<String> kept = new ArrayList<>();
+        List<String> keptKeys = new ArrayList<>();
+        for (String word : words) {
+            String key = normalize(word);
+            if (!key.isEmpty()) {
+                kept.add(word);
+                keptKeys.add(key);
+            }
+        }
+        this.words = kept.toArray(new String[kept.size()]);
+        this.keys = keptKeys.toArray(new String[keptKeys.size()]);
+    }
+
+    private static String normalize(String word) {
+        StringBuilder key = new StringBuilder(word.length());
+        for (char c : word.toLowerCase().toCharArray()) {
+            if (Character.isLetterOrDigit(c) || c == '♀' || c == '♂') {
+                key.append(c);
+            }
+        }
+        return key.toString();
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    /**
+     * Find the words which the whole reading may be.
+     *
+     * @param text       The reading of the field.
+     * @param maxMatches How many matches to return at most.
+     * @return The best matches, best first.
+     */
+    public List<Match> decode(RecognizedText text, int maxMatches) {
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].length() == text.symbols.size()) {
+                addMatch(matches, i, text.symbols, 0);
+            }
+        }
+        return best(matches, maxMatches);
+    }
+
+    private void addMatch(List<Match> matches, int word, List<RecognizedText.Symbol> symbols, int start) {
+        String key = keys[word];
+        double total = 0;
+        for (int i = 0; i < key.length(); i++) {
+            double confidence = symbols.get(start + i).getConfidence(key.charAt(i));
+            if (confidence < 0) {
+                return;
+            }
+            total += confidence;
+        }
+        matches.add(new Match(words[word], key.length(), total / key.length()));
+    }
+
+    private static List<Match> best(List<Match> matches, int maxMatches) {
+        Collections.sort(matches, BEST_FIRST);
+        return matches.size() > maxMatches ? new ArrayList<>(matches.subList(0, maxMatches)) : matches;
+    }
+
+    /**
+     * Get the best match if it's reliable enough to skip any other correction: it scores high, and clearly above the
+     * next match of the same length.
+     *
+     * @param matches The matches of decode, best first.
+     * @return The word of the best match, or absent if there's no confident match.
+     */
+    public static Optional<String> getConfidentWord(List<Match> matches) {
+        if (matches.isEmpty()) {
+            return Optional.absent();
+        }
+        Match best = matches.get(0);
+        if (best.score < CONFIDENT_SCORE) {
+            return Optional.absent();
+        }
+        if (matches.size() > 1) {
+            Match next = matches.get(1);
+            if (next.length == best.length && next.score > best.score - CONFIDENT_MARGIN) {
+                return Optional.absent();
+            }
+        }
+        return Optional.of(best.word);
+    }
+
+    /**
+     * A word of the vocabulary which the reading may be.
+     */
+    public static final class Match {
+        /**
+         * The word, as given to the decoder.
+         */
+        public final String word;
+
+        /**
+         * The number of symbols of the reading the word covers.
+         */
+        public final int length;
+
+        /**
+         * The average confidence of the OCR in the characters of the word, between 0 and 100.
+         */
+        public final double score;
+
+        Match(String word, int length, double score) {
+            this.word = word;
+            this.length = length;
+            this.score = score;
+        }
+    }
+}
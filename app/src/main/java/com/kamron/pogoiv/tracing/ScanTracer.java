@@ -0,0 +1,184 @@
+package com.kamron.pogoiv.tracing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records how long each stage of a scan takes, to find out where scan time goes on real devices.
+ * <p/>
+ * Spans are timed with System.nanoTime and kept in a fixed size ring buffer which overwrites the oldest spans, so
+ * recording never allocates or locks. When tracing is disabled, begin() and end() only read a volatile flag.
+ * <pre>
+ * long start = ScanTracer.begin();
+ * doSomething();
+ * ScanTracer.end(Stage.SOMETHING, start);
+ * </pre>
+ */
+public final class ScanTracer {
+
+    private static final long NOT_TRACED = Long.MIN_VALUE;
+    private static final int CAPACITY = 4096; // Must be a power of two.
+    private static final int STAGE_BITS = 8;
+    // A slot no span was written to yet, which isn't a valid span: its stage bits match no stage.
+    private static final long NO_SPAN = -1;
+
+    private static volatile boolean enabled = false;
+    private static final AtomicLong nextSpan = new AtomicLong();
+    // Each span is its duration shifted left by STAGE_BITS, or'd with the stage ordinal, so it's written atomically.
+    private static final AtomicLongArray spans = new AtomicLongArray(CAPACITY);
+    private static final AtomicLongArray cacheLookups = new AtomicLongArray(Stage.values().length);
+    private static final AtomicLongArray cacheHits = new AtomicLongArray(Stage.values().length);
+
+    static {
+        clearSpans();
+    }
+
+    private ScanTracer() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        ScanTracer.enabled = enabled;
+    }
+
+    /**
+     * Start a span.
+     *
+     * @return The value to pass to end() once the stage is done.
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : NOT_TRACED;
+    }
+
+    /**
+     * End a span started by begin(), and record it if tracing was enabled when it started.
+     *
+     * @param stage The stage which ran since begin() was called.
+     * @param start The value begin() returned.
+     */
+    public static void end(Stage stage, long start) {
+        if (start == NOT_TRACED) {
+            return;
+        }
+        long duration = Math.max(System.nanoTime() - start, 0);
+        int index = (int) (nextSpan.getAndIncrement() & (CAPACITY - 1));
+        spans.lazySet(index, duration << STAGE_BITS | stage.ordinal());
+    }
+
+    /**
+     * Record a lookup of the OCR cache.
+     *
+     * @param stage The OCR stage which looked up its result.
+     * @param hit   Whether the result was in the cache.
+     */
+    public static void cacheLookup(Stage stage, boolean hit) {
+        if (!enabled) {
+            return;
+        }
+        cacheLookups.incrementAndGet(stage.ordinal());
+        if (hit) {
+            cacheHits.incrementAndGet(stage.ordinal());
+        }
+    }
+
+    /**
+     * Forget all recorded spans and cache lookups.
+     */
+    public static void clear() {
+        clearSpans();
+        nextSpan.set(0);
+        for (int i = 0; i < cacheLookups.length(); i++) {
+            cacheLookups.set(i, 0);
+            cacheHits.set(i, 0);
+        }
+    }
+
+    private static void clearSpans() {
+        for (int i = 0; i < CAPACITY; i++) {
+            spans.set(i, NO_SPAN);
+        }
+    }
+
+    /**
+     * Get the percentiles of the recorded spans of each stage. Spans recorded while this runs may or may not be
+     * included.
+     *
+     * @return The stats of each stage which recorded something, in the order of Stage.
+     */
+    public static List<StageStats> getStats() {
+        int stageCount = Stage.values().length;
+        int spanCount = (int) Math.min(nextSpan.get(), CAPACITY);
+        long[][] nanos = new long[stageCount][spanCount];
+        int[] counts = new int[stageCount];
+        for (int i = 0; i < spanCount; i++) {
+            long span = spans.get(i);
+            if (span == NO_SPAN) {
+                continue; // reserved by end() but not written yet
+            }
+            int stage = (int) (span & ((1 << STAGE_BITS) - 1));
+            nanos[stage][counts[stage]++] = span >>> STAGE_BITS;
+        }
+
+        List<StageStats> stats = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            int i = stage.ordinal();
+            long lookups = cacheLookups.get(i);
+            if (counts[i] > 0 || lookups > 0) {
+                Arrays.sort(nanos[i], 0, counts[i]);
+                stats.add(new StageStats(stage, nanos[i], counts[i], lookups, cacheHits.get(i)));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Format stats as CSV, with durations in microseconds and an empty cache hit ratio for stages without cache.
+     */
+    public static String toCsv(List<StageStats> stats) {
+        StringBuilder csv = new StringBuilder("stage,count,p50_us,p95_us,p99_us,cache_lookups,cache_hit_ratio\n");
+        for (StageStats stageStats : stats) {
+            csv.append(stageStats.stage.label)
+                    .append(',').append(stageStats.count)
+                    .append(',').append(toMicros(stageStats.p50Nanos))
+                    .append(',').append(toMicros(stageStats.p95Nanos))
+                    .append(',').append(toMicros(stageStats.p99Nanos))
+                    .append(',').append(stageStats.cacheLookups)
+                    .append(',').append(stageStats.getCacheHitRatio() < 0 ? ""
+                            : String.format(Locale.US, "%.3f", stageStats.getCacheHitRatio()))
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Format stats as JSON, with durations in microseconds and a null cache hit ratio for stages without cache.
+     */
+    public static String toJson(List<StageStats> stats) {
+        StringBuilder json = new StringBuilder("{\n  \"stages\": [");
+        String separator = "\n";
+        for (StageStats stageStats : stats) {
+            json.append(separator).append("    {\"stage\": \"").append(stageStats.stage.label).append('"')
+                    .append(", \"count\": ").append(stageStats.count)
+                    .append(", \"p50Micros\": ").append(toMicros(stageStats.p50Nanos))
+                    .append(", \"p95Micros\": ").append(toMicros(stageStats.p95Nanos))
+                    .append(", \"p99Micros\": ").append(toMicros(stageStats.p99Nanos))
+                    .append(", \"cacheLookups\": ").append(stageStats.cacheLookups)
+                    .append(", \"cacheHitRatio\": ").append(stageStats.getCacheHitRatio() < 0 ? "null"
+                            : String.format(Locale.US, "%.3f", stageStats.getCacheHitRatio()))
+                    .append('}');
+            separator = ",\n";
+        }
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    private static String toMicros(long nanos) {
+        return String.format(Locale.US, "%.1f", nanos / 1000.0);
+    }
+}
@@ -0,0 +1,30 @@
+package com.kamron.pogoiv.tracing;
+
+/**
+ * The steps of a scan which ScanTracer times, from grabbing the screen to showing the results.
+ */
+public enum Stage {
+    GRAB_SCREEN("grab screen"),
+    OCR_SCAN("ocr scan"),
+    OCR_LEVEL("ocr level"),
+    OCR_NAME("ocr name"),
+    OCR_TYPE("ocr type"),
+    OCR_CANDY_NAME("ocr candy name"),
+    OCR_HP("ocr hp"),
+    OCR_CP("ocr cp"),
+    OCR_CANDY_AMOUNT("ocr candy amount"),
+    OCR_EVOLUTION_COST("ocr evolution cost"),
+    OCR_IDENTIFIER("ocr identifier"),
+    OCR_APPRAISAL("ocr appraisal"),
+    NAME_CORRECTION("name correction"),
+    IV_POSSIBILITIES("iv possibilities"),
+    CLIPBOARD_RENDER("clipboard render"),
+    OVERLAY_INPUT("overlay input"),
+    OVERLAY_RESULTS("overlay results");
+
+    public final String label;
+
+    Stage(String label) {
+        this.label = label;
+    }
+}
@@ -0,0 +1,45 @@
+package com.kamron.pogoiv.tracing;
+
+/**
+ * The durations recorded for one stage by ScanTracer, and the OCR cache use of that stage.
+ */
+public class StageStats {
+    public final Stage stage;
+    public final int count;
+    public final long p50Nanos;
+    public final long p95Nanos;
+    public final long p99Nanos;
+    public final long cacheLookups;
+    public final long cacheHits;
+
+    StageStats(Stage stage, long[] sortedNanos, int count, long cacheLookups, long cacheHits) {
+        this.stage = stage;
+        this.count = count;
+        this.p50Nanos = percentile(sortedNanos, count, 50);
+        this.p95Nanos = percentile(sortedNanos, count, 95);
+        this.p99Nanos = percentile(sortedNanos, count, 99);
+        this.cacheLookups = cacheLookups;
+        this.cacheHits = cacheHits;
+    }
+
+    /**
+     * Nearest-rank percentile of the first count values of a sorted array, 0 if there are none.
+     */
+    private static long percentile(long[] sortedNanos, int count, int percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sortedNanos[Math.max(rank, 0)];
+    }
+
+    /**
+     * The share of lookups which were found in the OCR cache, or -1 if the stage didn't use the cache.
+     */
+    public double getCacheHitRatio() {
+        if (cacheLookups == 0) {
+            return -1;
+        }
+        return (double) cacheHits / cacheLookups;
+    }
+}
@@ -11,6 +11,7 @@ import com.kamron.pogoiv.GuiUtil;
 import com.kamron.pogoiv.logic.Pokemon;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Spinner formatter.
@@ -18,7 +19,7 @@ import java.util.ArrayList;
 public class PokemonSpinnerAdapter extends ArrayAdapter<Pokemon> {
     private final Context context;
     private final int textViewResourceId;
-    private ArrayList<Pokemon> pokemons;
+    private List<Pokemon> pokemons;
 
     public PokemonSpinnerAdapter(Context context, int textViewResourceId, ArrayList<Pokemon> pokemons) {
         super(context, textViewResourceId, pokemons);
@@ -37,7 +38,7 @@ public class PokemonSpinnerAdapter extends ArrayAdapter<Pokemon> {
      *
      * @param list the new list of pokemon to show in the spinner
      */
-    public void updatePokemonList(ArrayList<Pokemon> list) {
+    public void updatePokemonList(List<Pokemon> list) {
         pokemons = list;
         clear();
         addAll(pokemons);
@@ -0,0 +1,105 @@
+package com.kamron.pogoiv;
+
+import com.kamron.pogoiv.ocr.RecognizerProfile;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EnginePoolTest {
+
+    /**
+     * Creates numbered engines, failing to create the one of a profile until told not to.
+     */
+    private static class FailingFactory implements EnginePool.Factory<Integer> {
+        private final List<Integer> created = new ArrayList<>();
+        private final List<Integer> ended = new ArrayList<>();
+        private volatile RecognizerProfile failing;
+
+        @Override
+        public String prepare() {
+            return "data";
+        }
+
+        @Override
+        public synchronized Integer create(String dataPath, RecognizerProfile profile) {
+            if (profile == failing) {
+                throw new IllegalStateException("Could not create " + profile);
+            }
+            created.add(created.size());
+            return created.size() - 1;
+        }
+
+        @Override
+        public void warmUp(Integer engine) {
+        }
+
+        @Override
+        public void clear(Integer engine) {
+        }
+
+        @Override
+        public synchronized void end(Integer engine) {
+            ended.add(engine);
+        }
+    }
+
+    @Test
+    public void testRetriedWarmUpStaysWithinIdleLimit() throws Exception {
+        FailingFactory factory = new FailingFactory();
+        // The last profile warmed up fails, after the others were kept idle.
+        factory.failing = RecognizerProfile.NUMERIC;
+        EnginePool<Integer> pool = new EnginePool<>(factory, 1);
+        try {
+            pool.getReady().get();
+            fail("The warm-up should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        int createdBeforeRetry = factory.created.size();
+        assertTrue(createdBeforeRetry > 0);
+
+        factory.failing = null;
+        assertEquals("data", pool.getReady().get());
+        for (RecognizerProfile profile : RecognizerProfile.values()) {
+            assertEquals(profile.toString(), profile == RecognizerProfile.APPRAISAL ? 0 : 1,
+                    pool.getIdleCount(profile));
+        }
+        // Only the engine which failed was created again, nothing had to be ended.
+        assertEquals(createdBeforeRetry + 1, factory.created.size());
+        assertTrue(factory.ended.isEmpty());
+    }
+
+    @Test
+    public void testReleaseEndsEnginesBeyondIdleLimit() throws Exception {
+        FailingFactory factory = new FailingFactory();
+        EnginePool<Integer> pool = new EnginePool<>(factory, 1);
+        pool.getReady().get();
+        Integer first = pool.acquire(RecognizerProfile.NAME);
+        Integer second = pool.acquire(RecognizerProfile.NAME);
+        pool.release(RecognizerProfile.NAME, first);
+        pool.release(RecognizerProfile.NAME, second);
+        assertEquals(1, pool.getIdleCount(RecognizerProfile.NAME));
+        assertEquals(1, factory.ended.size());
+        assertEquals(second, factory.ended.get(0));
+    }
+
+    @Test
+    public void testEndIdleEndsOnlyIdleEngines() throws Exception {
+        FailingFactory factory = new FailingFactory();
+        EnginePool<Integer> pool = new EnginePool<>(factory, 1);
+        pool.getReady().get();
+        Integer inUse = pool.acquire(RecognizerProfile.NAME);
+        pool.endIdle();
+        assertEquals(factory.created.size() - 1, factory.ended.size());
+        assertFalse(factory.ended.contains(inUse));
+        assertEquals(0, pool.getIdleCount(RecognizerProfile.LINE));
+    }
+}
@@ -0,0 +1,28 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchScanRowTest {
+
+    @Test
+    public void testFailedRowLeavesValuesEmpty() throws Exception {
+        BatchScanRow row = BatchScanRow.failed(0, "Screenshot_1.png", "Not an image");
+        assertEquals("Screenshot_1.png,,,,,,,,0,Not an image", row.toCsv());
+        assertEquals("{\"screenshot\": \"Screenshot_1.png\", \"pokemon\": \"\", \"cp\": null, \"hp\": null, "
+                + "\"level\": null, \"ivMin\": null, \"ivAverage\": null, \"ivMax\": null, \"ivCombinations\": 0, "
+                + "\"error\": \"Not an image\"}", row.toJson());
+    }
+
+    @Test
+    public void testTextIsEscaped() throws Exception {
+        BatchScanRow row = BatchScanRow.failed(1, "a,b \"c\".png", "bad\nimage");
+        assertEquals("\"a,b \"\"c\"\".png\",,,,,,,,0,\"bad\nimage\"", row.toCsv());
+        assertEquals("[\n  {\"screenshot\": \"a,b \\\"c\\\".png\", \"pokemon\": \"\", \"cp\": null, \"hp\": null, "
+                + "\"level\": null, \"ivMin\": null, \"ivAverage\": null, \"ivMax\": null, \"ivCombinations\": 0, "
+                + "\"error\": \"bad\\u000aimage\"}\n]\n", BatchScanRow.toJson(Arrays.asList(row)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DataTest {
+
+    @Test
+    public void testOcrAwareDistanceCountsPlainEdits() throws Exception {
+        assertEquals(Data.ocrAwareDistance("pidgey", "pidgey", 100), 0);
+        assertEquals(Data.ocrAwareDistance("pidgey", "pidgay", 100), Data.EDIT_COST);
+        assertEquals(Data.ocrAwareDistance("kitten", "sitting", 100), 3 * Data.EDIT_COST);
+    }
+
+    @Test
+    public void testOcrConfusionsAreCheaperThanEdits() throws Exception {
+        assertEquals(Data.ocrAwareDistance("clefairy", "c1efairy", 100), 1);
+        assertEquals(Data.ocrAwareDistance("magikarp", "rnagikarp", 100), 1);
+        assertEquals(Data.ocrAwareDistance("slowpoke", "5l0wpoke", 100), 2);
+    }
+
+    @Test
+    public void testOcrAwareDistanceStopsAtBound() throws Exception {
+        assertEquals(Data.ocrAwareDistance("bulbasaur", "charmander", 3), 4);
+        assertEquals(Data.ocrAwareDistance("mew", "mewtwo", 5), 6);
+        assertEquals(Data.ocrAwareDistance("mew", "mewtwo", 6), 6);
+    }
+
+    @Test
+    public void testOcrConfusionsAreFoundWithTightBound() throws Exception {
+        assertEquals(Data.ocrAwareDistance("magikarp", "rnagikarp", 1), 1);
+        assertEquals(Data.ocrAwareDistance("am", "arn", 1), 1);
+        assertEquals(Data.ocrAwareDistance("arn", "am", 1), 1);
+    }
+
+    @Test
+    public void testPowerUpCostFromLevel1To40() throws Exception {
+        int fromLevelIdx = Data.levelToLevelIdx(1);
+        int toLevelIdx = Data.levelToLevelIdx(40);
+        assertEquals(Data.getPowerUpCandy(fromLevelIdx, toLevelIdx), 304);
+        assertEquals(Data.getPowerUpStardust(fromLevelIdx, toLevelIdx), 270000);
+    }
+
+    @Test
+    public void testPowerUpCostIsZeroWhenNotLevelingUp() throws Exception {
+        assertEquals(Data.getPowerUpCandy(20, 20), 0);
+        assertEquals(Data.getPowerUpStardust(30, 10), 0);
+    }
+
+    @Test
+    public void testLevelIdxCpMSquaredMatchesCpM() throws Exception {
+        for (int levelIdx = 0; levelIdx < 79; levelIdx++) {
+            double cpm = Data.getLevelCpM(Data.levelIdxToLevel(levelIdx));
+            assertEquals(Data.getLevelIdxCpM(levelIdx), cpm, 0);
+            assertEquals(Data.getLevelIdxCpMSquared(levelIdx), Math.pow(cpm, 2), 0);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PokeInfoCalculatorTest {
+
+    /**
+     * Base attack, defense and stamina of species spanning the range of the pokedex: Bulbasaur, Magikarp, Chansey,
+     * Dragonite and Mewtwo.
+     */
+    private static final int[][] BASE_STATS = {
+            {118, 118, 90}, {29, 102, 40}, {60, 128, 500}, {263, 201, 182}, {300, 182, 212}};
+
+    private PokeInfoCalculator calculator;
+
+    @Before
+    public void setUp() {
+        int count = BASE_STATS.length;
+        String[] names = new String[count];
+        int[] attack = new int[count];
+        int[] defense = new int[count];
+        int[] stamina = new int[count];
+        int[] devolution = new int[count];
+        int[] candyCost = new int[count];
+        int[] candyNames = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = "Pokemon" + i;
+            attack[i] = BASE_STATS[i][0];
+            defense[i] = BASE_STATS[i][1];
+            stamina[i] = BASE_STATS[i][2];
+            devolution[i] = -1;
+            candyCost[i] = -1;
+            candyNames[i] = i;
+        }
+        calculator = PokeInfoCalculator.getInstance(names, names, attack, defense, stamina, devolution, candyCost,
+                candyNames);
+    }
+
+    /**
+     * The IV combinations getIVPossibilities found before it read the CpM² and square root tables, computed with
+     * Math.pow and Math.sqrt in the loops.
+     */
+    private static List<IVCombination> getIVPossibilitiesWithoutTables(Pokemon pokemon, double level, int pokemonHP,
+                                                                       int pokemonCP) {
+        List<IVCombination> combinations = new ArrayList<>();
+        double lvlScalar = Data.getLevelCpM(level);
+        double lvlScalarPow2 = Math.pow(lvlScalar, 2) * 0.1;
+        for (int staminaIV = 0; staminaIV < 16; staminaIV++) {
+            int hp = (int) Math.max(Math.floor((pokemon.baseStamina + staminaIV) * lvlScalar), 10);
+            if (hp == pokemonHP) {
+                double lvlScalarStamina = Math.sqrt(pokemon.baseStamina + staminaIV) * lvlScalarPow2;
+                for (int defenseIV = 0; defenseIV < 16; defenseIV++) {
+                    for (int attackIV = 0; attackIV < 16; attackIV++) {
+                        int cp = Math.max(10, (int) Math.floor((pokemon.baseAttack + attackIV)
+                                * Math.sqrt(pokemon.baseDefense + defenseIV) * lvlScalarStamina));
+                        if (cp == pokemonCP) {
+                            combinations.add(new IVCombination(attackIV, defenseIV, staminaIV));
+                        }
+                    }
+                }
+            }
+        }
+        return combinations;
+    }
+
+    @Test
+    public void testPerfectCpAtLevelBounds() {
+        IVCombination perfect = new IVCombination(15, 15, 15);
+        for (Pokemon pokemon : calculator.getPokedex()) {
+            assertEquals(calculator.getCpRangeAtLevel(pokemon, perfect, perfect, 1).low,
+                    calculator.getPerfectCpAtLevel(pokemon, 1));
+            assertEquals(calculator.getCpRangeAtLevel(pokemon, perfect, perfect, 40).low,
+                    calculator.getPerfectCpAtLevel(pokemon, 40));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPerfectCpAboveMaxLevelIsRejected() {
+        calculator.getPerfectCpAtLevel(calculator.get(0), 40.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPerfectCpBelowLevelOneIsRejected() {
+        calculator.getPerfectCpAtLevel(calculator.get(0), 0.5);
+    }
+
+    @Test
+    public void testIVPossibilitiesMatchComputationWithoutTables() {
+        int checked = 0;
+        for (Pokemon pokemon : calculator.getPokedex()) {
+            for (int levelIdx = 0; levelIdx <= Data.levelToLevelIdx(40); levelIdx++) {
+                double level = Data.levelIdxToLevel(levelIdx);
+                for (int iv = 0; iv < 16; iv += 5) {
+                    IVCombination ivs = new IVCombination(iv, 15 - iv, iv);
+                    int cp = calculator.getCpRangeAtLevel(pokemon, ivs, ivs, level).low;
+                    int hp = (int) Math.max(Math.floor((pokemon.baseStamina + iv) * Data.getLevelCpM(level)), 10);
+                    // The exact CP, and CPs just off it which may match other combinations or none.
+                    for (int cpOffset = -1; cpOffset <= 1; cpOffset++) {
+                        List<IVCombination> expected = getIVPossibilitiesWithoutTables(pokemon, level, hp,
+                                cp + cpOffset);
+                        IVScanResult actual = calculator.calculateIVPossibilities(pokemon, level, hp, cp + cpOffset);
+                        assertEquals(pokemon.name + " at level " + level + " with " + (cp + cpOffset) + " CP",
+                                expected, actual.iVCombinations);
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertEquals(BASE_STATS.length * (Data.levelToLevelIdx(40) + 1) * 4 * 3, checked);
+    }
+}
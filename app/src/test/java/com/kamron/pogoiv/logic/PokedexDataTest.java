@@ -0,0 +1,65 @@
+package com.kamron.pogoiv.logic;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PokedexDataTest {
+
+    private static byte[] asset(int magic, int version, int count, int[]... columns) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(magic);
+        out.writeInt(version);
+        out.writeInt(count);
+        for (int[] column : columns) {
+            for (int value : column) {
+                out.writeShort(value);
+            }
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testColumnsAreReadInOrder() throws Exception {
+        byte[] bytes = asset(PokedexData.MAGIC, PokedexData.VERSION, 3,
+                new int[]{118, 151, 198}, new int[]{118, 151, 198}, new int[]{90, 120, 160},
+                new int[]{-1, 0, 1}, new int[]{25, 100, -1}, new int[]{0, -1, -1});
+        PokedexData data = PokedexData.read(ByteBuffer.wrap(bytes));
+        assertEquals(3, data.size());
+        assertArrayEquals(new int[]{118, 151, 198}, data.getAttack());
+        assertArrayEquals(new int[]{90, 120, 160}, data.getStamina());
+        assertArrayEquals(new int[]{-1, 0, 1}, data.getDevolutionNumber());
+        assertArrayEquals(new int[]{25, 100, -1}, data.getEvolutionCandyCost());
+        assertArrayEquals(new int[]{0, -1, -1}, data.getCandyNames());
+    }
+
+    @Test
+    public void testInvalidAssetsAreRejected() throws Exception {
+        int[] column = {1, 2};
+        byte[] valid = asset(PokedexData.MAGIC, PokedexData.VERSION, 2, column, column, column, column, column, column);
+        byte[][] invalid = {
+                asset(0x12345678, PokedexData.VERSION, 2, column, column, column, column, column, column),
+                asset(PokedexData.MAGIC, PokedexData.VERSION + 1, 2, column, column, column, column, column, column),
+                Arrays.copyOf(valid, valid.length - 1),
+                Arrays.copyOf(valid, 8),
+        };
+        for (byte[] bytes : invalid) {
+            try {
+                PokedexData.read(ByteBuffer.wrap(bytes));
+                fail("Read an invalid asset of " + bytes.length + " bytes");
+            } catch (IOException expected) {
+                // Expected.
+            }
+        }
+    }
+}
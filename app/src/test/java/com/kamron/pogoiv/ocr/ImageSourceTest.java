@@ -0,0 +1,66 @@
+package com.kamron.pogoiv.ocr;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ImageSourceTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+    private static final int ROW_STRIDE = WIDTH * 4 + 12;
+
+    private static int[] randomPixels() {
+        Random random = new Random(1);
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+
+    /**
+     * Write ARGB pixels as RGBA with padded rows, the way ImageReader lays out a screen capture.
+     */
+    private static ByteBuffer toRgbaBuffer(int[] pixels) {
+        ByteBuffer buffer = ByteBuffer.allocate(ROW_STRIDE * HEIGHT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int pixel = pixels[y * WIDTH + x];
+                int offset = y * ROW_STRIDE + x * 4;
+                buffer.put(offset, (byte) (pixel >> 16));
+                buffer.put(offset + 1, (byte) (pixel >> 8));
+                buffer.put(offset + 2, (byte) pixel);
+                buffer.put(offset + 3, (byte) (pixel >>> 24));
+            }
+        }
+        return buffer;
+    }
+
+    @Test
+    public void testByteBufferRegionsMatchIntArrayRegions() throws Exception {
+        int[] pixels = randomPixels();
+        ImageSource expected = new IntArrayImageSource(pixels, WIDTH, HEIGHT).getRegion(3, 4, 20, 10);
+        ImageSource actual = new ByteBufferImageSource(toRgbaBuffer(pixels), WIDTH, HEIGHT, 4, ROW_STRIDE)
+                .getRegion(3, 4, 20, 10);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getPixel(x, y), actual.getPixel(x, y));
+            }
+        }
+        assertEquals(ImageUtil.hashImage(expected), ImageUtil.hashImage(actual));
+    }
+
+    @Test
+    public void testHashImageMatchesHashOfAllPixels() throws Exception {
+        int[] pixels = randomPixels();
+        String expected = Integer.toHexString(Arrays.hashCode(pixels));
+        assertEquals(expected, ImageUtil.hashImage(new IntArrayImageSource(pixels, WIDTH, HEIGHT)));
+        assertEquals(expected, ImageUtil.hashImage(
+                new ByteBufferImageSource(toRgbaBuffer(pixels), WIDTH, HEIGHT, 4, ROW_STRIDE)));
+    }
+}
@@ -0,0 +1,57 @@
+package com.kamron.pogoiv.ocr;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ImageUtilTest {
+
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 20;
+
+    @Test
+    public void testToGreyIsLuminance() {
+        int[] pixels = {ImageUtil.WHITE, ImageUtil.BLACK, ImageUtil.rgb(68, 105, 108), ImageUtil.rgb(255, 0, 0)};
+        byte[] grey = ImageUtil.toGrey(new IntArrayImageSource(pixels, 2, 2));
+        assertEquals(4, grey.length);
+        assertEquals(255, grey[0] & 0xFF);
+        assertEquals(0, grey[1] & 0xFF);
+        assertEquals(94, grey[2] & 0xFF);
+        assertEquals(76, grey[3] & 0xFF);
+    }
+
+    @Test
+    public void testTrimToContentKeepsMarginAroundText() {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, ImageUtil.WHITE);
+        pixels[8 * WIDTH + 20] = ImageUtil.BLACK;
+        pixels[10 * WIDTH + 30] = ImageUtil.BLACK;
+
+        ImageSource text = ImageUtil.trimToContent(new IntArrayImageSource(pixels, WIDTH, HEIGHT), ImageUtil.WHITE);
+        assertEquals(30 - 20 + 1 + 8, text.getWidth());
+        assertEquals(10 - 8 + 1 + 8, text.getHeight());
+        assertEquals(ImageUtil.BLACK, text.getPixel(4, 4));
+        assertEquals(ImageUtil.BLACK, text.getPixel(14, 6));
+    }
+
+    @Test
+    public void testTrimToContentClampsToImage() {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, ImageUtil.BLACK);
+        pixels[0] = ImageUtil.WHITE;
+        pixels[WIDTH * HEIGHT - 1] = ImageUtil.WHITE;
+
+        ImageSource image = new IntArrayImageSource(pixels, WIDTH, HEIGHT);
+        assertEquals(image, ImageUtil.trimToContent(image, ImageUtil.BLACK));
+    }
+
+    @Test
+    public void testTrimToContentOfBlankImageIsNull() {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, ImageUtil.WHITE);
+        assertNull(ImageUtil.trimToContent(new IntArrayImageSource(pixels, WIDTH, HEIGHT), ImageUtil.WHITE));
+    }
+}
@@ -0,0 +1,88 @@
+package com.kamron.pogoiv.ocr;
+
+import com.kamron.pogoiv.logic.Data;
+import com.kamron.pogoiv.logic.ScanResult;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ScreenScannerTest {
+
+    private static final int WIDTH = 720;
+    private static final int HEIGHT = 1280;
+    private static final int TRAINER_LEVEL = 30;
+
+    private int recognitions;
+    private ScreenScanner scanner;
+
+    @Before
+    public void setUp() {
+        Data.setupArcPoints(WIDTH, HEIGHT, TRAINER_LEVEL);
+        scanner = new ScreenScanner(new TextRecognizer() {
+            @Override
+            public String recognize(ImageSource image, RecognizerProfile profile) {
+                recognitions++;
+                return "CP512";
+            }
+
+            @Override
+            public RecognizedText recognizeChoices(ImageSource image, RecognizerProfile profile) {
+                return RecognizedText.certain(recognize(image, profile));
+            }
+        }, WIDTH, HEIGHT, "NidoranF", "NidoranM", false);
+    }
+
+    /**
+     * Get a black screen with a white block in the CP strip, at the given fraction of the width.
+     */
+    private static ImageSource screen(double cpX) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < 10; y++) {
+            Arrays.fill(pixels, (int) (HEIGHT * 0.08 + y) * WIDTH + (int) (WIDTH * cpX),
+                    (int) (HEIGHT * 0.08 + y) * WIDTH + (int) (WIDTH * cpX) + 10, ImageUtil.WHITE);
+        }
+        return new IntArrayImageSource(pixels, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void testScanReadsOnlyScannedHeight() {
+        int scannedHeight = scanner.getScannedHeight();
+        assertTrue(scannedHeight < HEIGHT);
+        int[] pixels = new int[WIDTH * scannedHeight];
+        // The image throws when a scan reads a pixel outside of it.
+        scanner.scanPokemon(new IntArrayImageSource(pixels, WIDTH, scannedHeight), TRAINER_LEVEL);
+    }
+
+    @Test
+    public void testSameScreenIsNotRecognizedAgain() {
+        ScanResult first = scanner.scanPokemon(screen(0.4), TRAINER_LEVEL);
+        int firstRecognitions = recognitions;
+        assertTrue(firstRecognitions > 0);
+
+        assertSame(first, scanner.scanPokemon(screen(0.4), TRAINER_LEVEL));
+        assertEquals(firstRecognitions, recognitions);
+    }
+
+    @Test
+    public void testChangedCpIsRecognizedAgain() {
+        ScanResult first = scanner.scanPokemon(screen(0.4), TRAINER_LEVEL);
+        int firstRecognitions = recognitions;
+
+        // A different CP strip, same identifier row.
+        ScanResult poweredUp = scanner.scanPokemon(screen(0.6), TRAINER_LEVEL);
+        assertNotSame(first, poweredUp);
+        assertTrue(recognitions > firstRecognitions);
+
+        // The screen from before the power up was forgotten.
+        int poweredUpRecognitions = recognitions;
+        assertNotSame(first, scanner.scanPokemon(screen(0.4), TRAINER_LEVEL));
+        assertTrue(recognitions > poweredUpRecognitions);
+    }
+}
@@ -0,0 +1,86 @@
+package com.kamron.pogoiv.ocr;
+
+import com.google.common.base.Optional;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VocabularyDecoderTest {
+
+    private final VocabularyDecoder decoder = new VocabularyDecoder(Arrays.asList("Pidgey", "Pidgeot", "Mew", "Mewtwo",
+            "Mr. Mime"));
+
+    /**
+     * Get a reading where the symbol at position {@code at} was read as {@code best} but could also be
+     * {@code alternative}.
+     */
+    private static RecognizedText hesitant(String text, int at, String best, String alternative) {
+        List<RecognizedText.Symbol> symbols = new ArrayList<>(RecognizedText.certain(text).symbols);
+        symbols.set(at, new RecognizedText.Symbol(new String[]{best, alternative}, new double[]{80, 70}));
+        return new RecognizedText(text, symbols);
+    }
+
+    @Test
+    public void testDecodeUsesAlternatives() {
+        RecognizedText text = hesitant("Pidgcy", 4, "c", "e");
+        List<VocabularyDecoder.Match> matches = decoder.decode(text, 3);
+        assertEquals(1, matches.size());
+        assertEquals("Pidgey", matches.get(0).word);
+        assertEquals(Optional.of("Pidgey"), VocabularyDecoder.getConfidentWord(matches));
+    }
+
+    @Test
+    public void testDecodeIgnoresPunctuationAndCase() {
+        assertEquals(Optional.of("Mr. Mime"),
+                VocabularyDecoder.getConfidentWord(decoder.decode(RecognizedText.certain("MRMIME"), 3)));
+    }
+
+    @Test
+    public void testRenamedPokemonIsNotDecoded() {
+        assertTrue(decoder.decode(RecognizedText.certain("Fluffy"), 3).isEmpty());
+    }
+
+    /**
+     * Decode a candy name as ScreenScanner does, without the word for candy.
+     */
+    private static Optional<String> decodeCandy(VocabularyDecoder candies, String text, boolean candyWordFirst) {
+        RecognizedText name = RecognizedText.certain(text).withoutWord(candyWordFirst);
+        return VocabularyDecoder.getConfidentWord(candies.decode(name, 3));
+    }
+
+    @Test
+    public void testCandyNameIsDecodedWithoutCandyWord() {
+        VocabularyDecoder candies = new VocabularyDecoder(Arrays.asList("MEW", "MEWTWO", "ABRA", "KADABRA"));
+        assertEquals(Optional.of("MEWTWO"), decodeCandy(candies, "MEWTWO CANDY", false));
+        assertEquals(Optional.of("ABRA"), decodeCandy(candies, "ABRA CANDY", false));
+        assertEquals(Optional.of("KADABRA"), decodeCandy(candies, "BONBON KADABRA", true));
+        assertEquals(Optional.of("MEW"), decodeCandy(candies, "CARAMELOS MEW", true));
+    }
+
+    @Test
+    public void testCandyNameIsNotFoundInsideLongerReading() {
+        VocabularyDecoder candies = new VocabularyDecoder(Arrays.asList("MEW", "MEWTWO", "ABRA", "KADABRA"));
+        // A misread name mustn't decode as a shorter name at its start or end.
+        assertFalse(decodeCandy(candies, "MEWTW0 CANDY", false).isPresent());
+        assertFalse(decodeCandy(candies, "KABRA CANDY", false).isPresent());
+        assertFalse(decodeCandy(candies, "BONBON MEWTW0", true).isPresent());
+        assertFalse(decodeCandy(candies, "CARAMELOS KABRA", true).isPresent());
+    }
+
+    @Test
+    public void testCloseMatchesAreNotConfident() {
+        RecognizedText text = new RecognizedText("Mew", Arrays.asList(
+                new RecognizedText.Symbol(new String[]{"m"}, new double[]{90}),
+                new RecognizedText.Symbol(new String[]{"e"}, new double[]{90}),
+                new RecognizedText.Symbol(new String[]{"w", "x"}, new double[]{90, 85})));
+        VocabularyDecoder close = new VocabularyDecoder(Arrays.asList("Mew", "Mex"));
+        assertFalse(VocabularyDecoder.getConfidentWord(close.decode(text, 3)).isPresent());
+    }
+}
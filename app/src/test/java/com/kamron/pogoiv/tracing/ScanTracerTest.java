@@ -0,0 +1,55 @@
+package com.kamron.pogoiv.tracing;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScanTracerTest {
+
+    @After
+    public void tearDown() throws Exception {
+        ScanTracer.setEnabled(false);
+        ScanTracer.clear();
+    }
+
+    @Test
+    public void testNothingIsRecordedWhenDisabled() throws Exception {
+        ScanTracer.setEnabled(false);
+        ScanTracer.end(Stage.OCR_NAME, ScanTracer.begin());
+        ScanTracer.cacheLookup(Stage.OCR_NAME, true);
+        assertTrue(ScanTracer.getStats().isEmpty());
+    }
+
+    @Test
+    public void testStatsPerStage() throws Exception {
+        ScanTracer.setEnabled(true);
+        for (int i = 0; i < 10; i++) {
+            ScanTracer.end(Stage.OCR_NAME, ScanTracer.begin());
+            ScanTracer.cacheLookup(Stage.OCR_NAME, i < 3);
+        }
+        ScanTracer.end(Stage.IV_POSSIBILITIES, ScanTracer.begin());
+
+        List<StageStats> stats = ScanTracer.getStats();
+        assertEquals(2, stats.size());
+        StageStats name = stats.get(0);
+        assertEquals(Stage.OCR_NAME, name.stage);
+        assertEquals(10, name.count);
+        assertTrue(name.p50Nanos <= name.p95Nanos && name.p95Nanos <= name.p99Nanos);
+        assertEquals(0.3, name.getCacheHitRatio(), 1e-9);
+        assertEquals(Stage.IV_POSSIBILITIES, stats.get(1).stage);
+        assertEquals(-1, stats.get(1).getCacheHitRatio(), 0);
+    }
+
+    @Test
+    public void testRingBufferKeepsTheLatestSpans() throws Exception {
+        ScanTracer.setEnabled(true);
+        for (int i = 0; i < 5000; i++) {
+            ScanTracer.end(Stage.OCR_CP, ScanTracer.begin());
+        }
+        assertEquals(4096, ScanTracer.getStats().get(0).count);
+    }
+}
@@ -0,0 +1,104 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.kamron.pogoiv.logic.Data;
+import com.kamron.pogoiv.logic.IVCombination;
+import com.kamron.pogoiv.logic.IVScanResult;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.Pokemon;
+import com.kamron.pogoiv.logic.ScanContainer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PokeInfoCalculator.getIVPossibilities for every species at every level, with a random IV combination each, next to
+ * the computation it replaced, which called Math.pow and Math.sqrt in its loops, on the same scans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IVPossibilitiesBenchmark {
+
+    private PokeInfoCalculator calculator;
+    private final List<Scan> scans = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        calculator = Pokedex.load();
+        Random random = new Random(42);
+        for (Pokemon pokemon : calculator.getPokedex()) {
+            for (int levelIdx = 0; levelIdx <= Data.levelToLevelIdx(40); levelIdx++) {
+                IVCombination iv = new IVCombination(random.nextInt(16), random.nextInt(16), random.nextInt(16));
+                scans.add(new Scan(calculator, pokemon, Data.levelIdxToLevel(levelIdx), iv));
+            }
+        }
+    }
+
+    @Benchmark
+    public IVScanResult getIVPossibilities() {
+        Scan scan = scans.get(next);
+        next = (next + 1) % scans.size();
+        return calculator.getIVPossibilities(scan.pokemon, scan.level, scan.hp, scan.cp);
+    }
+
+    @Benchmark
+    public IVScanResult getIVPossibilitiesWithoutTables() {
+        Scan scan = scans.get(next);
+        next = (next + 1) % scans.size();
+        return getIVPossibilitiesWithoutTables(scan.pokemon, scan.level, scan.hp, scan.cp);
+    }
+
+    /**
+     * getIVPossibilities as it was before it read the CpM² and square root tables.
+     */
+    private static IVScanResult getIVPossibilitiesWithoutTables(Pokemon pokemon, double level, int pokemonHP,
+                                                                int pokemonCP) {
+        IVScanResult returner = ScanContainer.createIVScanResult(pokemon, level, pokemonCP);
+        double lvlScalar = Data.getLevelCpM(level);
+        double lvlScalarPow2 = Math.pow(lvlScalar, 2) * 0.1;
+        for (int staminaIV = 0; staminaIV < 16; staminaIV++) {
+            int hp = (int) Math.max(Math.floor((pokemon.baseStamina + staminaIV) * lvlScalar), 10);
+            if (hp == pokemonHP) {
+                double lvlScalarStamina = Math.sqrt(pokemon.baseStamina + staminaIV) * lvlScalarPow2;
+                for (int defenseIV = 0; defenseIV < 16; defenseIV++) {
+                    for (int attackIV = 0; attackIV < 16; attackIV++) {
+                        int cp = Math.max(10, (int) Math.floor((pokemon.baseAttack + attackIV)
+                                * Math.sqrt(pokemon.baseDefense + defenseIV) * lvlScalarStamina));
+                        if (cp == pokemonCP) {
+                            returner.addIVCombination(attackIV, defenseIV, staminaIV);
+                        }
+                    }
+                }
+            }
+        }
+        return returner;
+    }
+
+    /**
+     * What the OCR reads on the screen of a pokemon with known IVs.
+     */
+    static final class Scan {
+        final Pokemon pokemon;
+        final double level;
+        final int cp;
+        final int hp;
+
+        Scan(PokeInfoCalculator calculator, Pokemon pokemon, double level, IVCombination iv) {
+            this.pokemon = pokemon;
+            this.level = level;
+            cp = Math.max(10, calculator.getCpRangeAtLevel(pokemon, iv, iv, level).low);
+            hp = (int) Math.max(Math.floor((pokemon.baseStamina + iv.sta) * Data.getLevelCpM(level)), 10);
+        }
+    }
+}
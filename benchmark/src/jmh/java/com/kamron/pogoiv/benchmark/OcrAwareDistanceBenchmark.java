@@ -0,0 +1,59 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.kamron.pogoiv.logic.Pokemon;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The OCR-aware distance between an OCR-noised pokemon name and every name of the pokedex, each compared only as far
+ * as it can still beat the best match so far, which is what the name correction fallback of PokemonNameCorrector
+ * computes when the nickname matches nothing exactly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OcrAwareDistanceBenchmark {
+
+    private List<Pokemon> pokedex;
+    private final List<String> nicknames = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        pokedex = Pokedex.load().getPokedex();
+        Random random = new Random(42);
+        for (Pokemon pokemon : pokedex) {
+            nicknames.add(Pokedex.addOcrNoise(pokemon.name, random));
+        }
+    }
+
+    @Benchmark
+    public Pokemon closestPokemon() {
+        String nickname = nicknames.get(next);
+        next = (next + 1) % nicknames.size();
+        Pokemon closest = null;
+        int lowestDist = Integer.MAX_VALUE;
+        for (Pokemon pokemon : pokedex) {
+            int dist = pokemon.getOcrAwareDistance(nickname, lowestDist - 1);
+            if (dist < lowestDist) {
+                closest = pokemon;
+                lowestDist = dist;
+                if (dist == 0) {
+                    break;
+                }
+            }
+        }
+        return closest;
+    }
+}
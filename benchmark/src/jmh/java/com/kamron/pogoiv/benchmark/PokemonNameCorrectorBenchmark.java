@@ -0,0 +1,78 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.google.common.base.Optional;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.Pokemon;
+import com.kamron.pogoiv.logic.PokemonNameCorrector;
+import com.kamron.pogoiv.logic.PokemonNameCorrector.PokeDist;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PokemonNameCorrector.getPossiblePokemon with the nickname, candy name and evolution cost of every species, as the
+ * OCR could have read them. Some pokemon are renamed, and some evolution costs could not be read.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PokemonNameCorrectorBenchmark {
+
+    private PokemonNameCorrector corrector;
+    private final List<NameScan> scans = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        PokeInfoCalculator calculator = Pokedex.load();
+        corrector = new PokemonNameCorrector(calculator);
+        Random random = new Random(42);
+        for (Pokemon pokemon : calculator.getPokedex()) {
+            String nickname;
+            switch (random.nextInt(4)) {
+                case 0: // read perfectly
+                    nickname = pokemon.name;
+                    break;
+                case 1: // renamed by the user
+                    nickname = Long.toString(random.nextLong(), 36);
+                    break;
+                default:
+                    nickname = Pokedex.addOcrNoise(pokemon.name, random);
+                    break;
+            }
+            String candyName = Pokedex.addOcrNoise(calculator.getEvolutionLine(pokemon).get(0).name, random);
+            Optional<Integer> candyUpgradeCost = pokemon.candyEvolutionCost < 0 || random.nextInt(5) == 0
+                    ? Optional.<Integer>absent() : Optional.of(pokemon.candyEvolutionCost);
+            scans.add(new NameScan(nickname, candyName, candyUpgradeCost));
+        }
+    }
+
+    @Benchmark
+    public PokeDist getPossiblePokemon() {
+        NameScan scan = scans.get(next);
+        next = (next + 1) % scans.size();
+        return corrector.getPossiblePokemon(scan.nickname, scan.candyName, scan.candyUpgradeCost, "");
+    }
+
+    private static final class NameScan {
+        final String nickname;
+        final String candyName;
+        final Optional<Integer> candyUpgradeCost;
+
+        NameScan(String nickname, String candyName, Optional<Integer> candyUpgradeCost) {
+            this.nickname = nickname;
+            this.candyName = candyName;
+            this.candyUpgradeCost = candyUpgradeCost;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.kamron.pogoiv.benchmark.IVPossibilitiesBenchmark.Scan;
+import com.kamron.pogoiv.logic.Data;
+import com.kamron.pogoiv.logic.IVCombination;
+import com.kamron.pogoiv.logic.IVScanResult;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.Pokemon;
+import com.kamron.pogoiv.logic.ScanContainer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScanContainer.getLatestIVIntersection between two scans of the same pokemon, before and after a power up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScanContainerBenchmark {
+
+    private final List<IVScanResult[]> scanPairs = new ArrayList<>();
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        PokeInfoCalculator calculator = Pokedex.load();
+        Random random = new Random(42);
+        List<Pokemon> pokedex = calculator.getPokedex();
+        while (scanPairs.size() < 1000) {
+            Pokemon pokemon = pokedex.get(random.nextInt(pokedex.size()));
+            int levelIdx = random.nextInt(Data.levelToLevelIdx(40));
+            IVCombination iv = new IVCombination(random.nextInt(16), random.nextInt(16), random.nextInt(16));
+            Scan before = new Scan(calculator, pokemon, Data.levelIdxToLevel(levelIdx), iv);
+            Scan after = new Scan(calculator, pokemon, Data.levelIdxToLevel(levelIdx + 1), iv);
+            scanPairs.add(new IVScanResult[]{
+                    calculator.getIVPossibilities(before.pokemon, before.level, before.hp, before.cp),
+                    calculator.getIVPossibilities(after.pokemon, after.level, after.hp, after.cp)});
+        }
+    }
+
+    @Benchmark
+    public ArrayList<IVCombination> getLatestIVIntersection() {
+        IVScanResult[] scanPair = scanPairs.get(next);
+        next = (next + 1) % scanPairs.size();
+        ScanContainer.scanContainer.prevScan = scanPair[0];
+        ScanContainer.scanContainer.currScan = scanPair[1];
+        return ScanContainer.scanContainer.getLatestIVIntersection();
+    }
+}
@@ -0,0 +1,42 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.kamron.pogoiv.logic.Data;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.UpgradeCost;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PokeInfoCalculator.getUpgradeCost between every pair of levels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UpgradeCostBenchmark {
+
+    private static final int LEVEL_COUNT = Data.levelToLevelIdx(40) + 1;
+
+    private PokeInfoCalculator calculator;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        calculator = Pokedex.load();
+    }
+
+    @Benchmark
+    public UpgradeCost getUpgradeCost() {
+        double estimatedPokemonLevel = Data.levelIdxToLevel(next / LEVEL_COUNT);
+        double goalLevel = Data.levelIdxToLevel(next % LEVEL_COUNT);
+        next = (next + 1) % (LEVEL_COUNT * LEVEL_COUNT);
+        return calculator.getUpgradeCost(goalLevel, estimatedPokemonLevel);
+    }
+}
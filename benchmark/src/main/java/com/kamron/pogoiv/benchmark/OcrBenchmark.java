@@ -0,0 +1,402 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.google.common.base.Optional;
+import com.kamron.pogoiv.logic.Data;
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+import com.kamron.pogoiv.logic.PokemonNameCorrector;
+import com.kamron.pogoiv.ocr.ImageSource;
+import com.kamron.pogoiv.ocr.IntArrayImageSource;
+import com.kamron.pogoiv.ocr.ScreenScanner;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Scans a folder of labeled pokemon screenshots with ScreenScanner and tesseract, and reports for each field the
+ * accuracy, the latency percentiles and how often the OCR cache avoided running tesseract.
+ * <p/>
+ * Each screenshot, like pidgey.png, comes with a pidgey.properties file of labels named after the fields:
+ * trainerLevel (default 40), level, name, type, candy, hp, cp, candyAmount, evolutionCost (-1 when fully evolved) and
+ * pokemon, the species PokemonNameCorrector should find. Fields without label are timed but not scored.
+ * Screenshots may have any resolution, the scan areas are computed for each of them like on a phone of that size.
+ * <p/>
+ * The first pass over the corpus runs with empty caches and is reported as "cold", the following ones as "warm".
+ * <p/>
+ * Usage: OcrBenchmark corpusFolder tessdataParentFolder [passes] [results.json]
+ */
+public final class OcrBenchmark {
+
+    /**
+     * The parts of a scan which are timed and scored, in the order they run.
+     */
+    private enum Field {
+        LEVEL("level") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getPokemonLevel(scan.screen, scan.trainerLevel);
+            }
+        },
+        NAME("name") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getPokemonName(scan.screen);
+            }
+        },
+        TYPE("type") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getPokemonType(scan.screen);
+            }
+        },
+        CANDY_NAME("candy") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getCandyName(scan.screen);
+            }
+        },
+        HP("hp") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getPokemonHP(scan.screen);
+            }
+        },
+        CP("cp") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getPokemonCP(scan.screen);
+            }
+        },
+        CANDY_AMOUNT("candyAmount") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getCandyAmount(scan.screen);
+            }
+        },
+        EVOLUTION_COST("evolutionCost") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getPokemonEvolutionCost(scan.screen);
+            }
+        },
+        IDENTIFIER("identifier") {
+            @Override
+            Object read(Scan scan) {
+                return scan.scanner.getPokemonIdentifier(scan.screen);
+            }
+        },
+        POKEMON("pokemon") {
+            @Override
+            @SuppressWarnings("unchecked")
+            Object read(Scan scan) {
+                PokemonNameCorrector.PokeDist guess = scan.corrector.getPossiblePokemon(
+                        (String) scan.values.get(NAME), (String) scan.values.get(CANDY_NAME),
+                        (Optional<Integer>) scan.values.get(EVOLUTION_COST), (String) scan.values.get(TYPE));
+                return guess.pokemon == null ? "" : guess.pokemon.name;
+            }
+        };
+
+        final String label;
+
+        Field(String label) {
+            this.label = label;
+        }
+
+        abstract Object read(Scan scan);
+    }
+
+    /**
+     * One scan of a screenshot, holding the fields read so far.
+     */
+    private static final class Scan {
+        final ScreenScanner scanner;
+        final PokemonNameCorrector corrector;
+        final ImageSource screen;
+        final int trainerLevel;
+        final Map<Field, Object> values = new EnumMap<>(Field.class);
+
+        Scan(ScreenScanner scanner, PokemonNameCorrector corrector, ImageSource screen, int trainerLevel) {
+            this.scanner = scanner;
+            this.corrector = corrector;
+            this.screen = screen;
+            this.trainerLevel = trainerLevel;
+        }
+    }
+
+    /**
+     * What was measured for one field over the whole corpus.
+     */
+    private static final class FieldStats {
+        final List<Long> coldNanos = new ArrayList<>();
+        final List<Long> warmNanos = new ArrayList<>();
+        int scored;
+        int correct;
+        int reads;
+        int readsWithoutOcr;
+    }
+
+    private final PokeInfoCalculator pokeInfoCalculator;
+    private final PokemonNameCorrector corrector;
+    private final TesseractRecognizer recognizer;
+    private final Map<String, ScreenScanner> scanners = new HashMap<>();
+    private final Map<Field, FieldStats> stats = new EnumMap<>(Field.class);
+    private final List<String[]> failures = new ArrayList<>();
+
+    private OcrBenchmark(PokeInfoCalculator pokeInfoCalculator, TesseractRecognizer recognizer) {
+        this.pokeInfoCalculator = pokeInfoCalculator;
+        this.corrector = new PokemonNameCorrector(pokeInfoCalculator);
+        this.recognizer = recognizer;
+        for (Field field : Field.values()) {
+            stats.put(field, new FieldStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: OcrBenchmark corpusFolder tessdataParentFolder [passes] [results.json]");
+            System.exit(1);
+        }
+        File[] screenshots = new File(args[0]).listFiles();
+        if (screenshots == null) {
+            throw new IOException(args[0] + " is not a folder");
+        }
+        Arrays.sort(screenshots);
+        int passes = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        TesseractRecognizer recognizer = new TesseractRecognizer(args[1]);
+        try {
+            OcrBenchmark benchmark = new OcrBenchmark(Pokedex.load(), recognizer);
+            int scanned = 0;
+            for (int pass = 0; pass < passes; pass++) {
+                scanned = 0;
+                for (File screenshot : screenshots) {
+                    File labelFile = getLabelFile(screenshot);
+                    if (labelFile != null) {
+                        benchmark.scan(screenshot, loadLabels(labelFile), pass == 0);
+                        scanned++;
+                    }
+                }
+            }
+            benchmark.printReport(scanned, passes);
+            if (args.length > 3) {
+                File results = new File(args[3]);
+                results.getAbsoluteFile().getParentFile().mkdirs();
+                benchmark.writeJson(results, scanned, passes);
+                System.out.println("Results written to " + results);
+            }
+        } finally {
+            recognizer.end();
+        }
+    }
+
+    private static File getLabelFile(File screenshot) {
+        String name = screenshot.getName();
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.US);
+        if (!extension.equals("png") && !extension.equals("jpg") && !extension.equals("jpeg")) {
+            return null;
+        }
+        File labelFile = new File(screenshot.getParentFile(), name.substring(0, dot) + ".properties");
+        return labelFile.isFile() ? labelFile : null;
+    }
+
+    private static Properties loadLabels(File labelFile) throws IOException {
+        Properties labels = new Properties();
+        InputStream in = new FileInputStream(labelFile);
+        try {
+            labels.load(new InputStreamReader(in, "UTF-8"));
+        } finally {
+            in.close();
+        }
+        return labels;
+    }
+
+    /**
+     * Scan one screenshot field by field, timing each field and comparing it to its label.
+     */
+    private void scan(File screenshot, Properties labels, boolean cold) throws IOException {
+        BufferedImage image = ImageIO.read(screenshot);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ImageSource screen = new IntArrayImageSource(image.getRGB(0, 0, width, height, null, 0, width),
+                width, height);
+        int trainerLevel = Integer.parseInt(labels.getProperty("trainerLevel", "40").trim());
+        Data.setupArcPoints(width, height, trainerLevel);
+
+        Scan scan = new Scan(getScanner(width, height), corrector, screen, trainerLevel);
+        for (Field field : Field.values()) {
+            FieldStats fieldStats = stats.get(field);
+            int callsBefore = recognizer.getCalls();
+            long start = System.nanoTime();
+            Object value = field.read(scan);
+            long nanos = System.nanoTime() - start;
+            scan.values.put(field, value);
+
+            (cold ? fieldStats.coldNanos : fieldStats.warmNanos).add(nanos);
+            fieldStats.reads++;
+            if (recognizer.getCalls() == callsBefore) {
+                fieldStats.readsWithoutOcr++;
+            }
+            String label = labels.getProperty(field.label);
+            if (cold && label != null) {
+                fieldStats.scored++;
+                if (matches(value, label)) {
+                    fieldStats.correct++;
+                } else {
+                    failures.add(new String[]{screenshot.getName(), field.label, label.trim(), format(value)});
+                }
+            }
+        }
+    }
+
+    private ScreenScanner getScanner(int width, int height) {
+        String size = width + "x" + height;
+        ScreenScanner scanner = scanners.get(size);
+        if (scanner == null) {
+            scanner = new ScreenScanner(recognizer, width, height, pokeInfoCalculator, true);
+            scanners.put(size, scanner);
+        }
+        return scanner;
+    }
+
+    private static boolean matches(Object value, String label) {
+        if (value instanceof Double) {
+            try {
+                return (Double) value == Double.parseDouble(label.trim());
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return normalize(format(value)).equals(normalize(label));
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Optional) {
+            Optional<?> optional = (Optional<?>) value;
+            return optional.isPresent() ? optional.get().toString() : "";
+        }
+        return value.toString();
+    }
+
+    private static String normalize(String text) {
+        return text.replaceAll("\\s", "").toLowerCase(Locale.US);
+    }
+
+    private static double percentileMicros(List<Long> nanos, double percentile) {
+        if (nanos.isEmpty()) {
+            return 0;
+        }
+        Long[] sorted = nanos.toArray(new Long[nanos.size()]);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(rank, 0)] / 1000.0;
+    }
+
+    /**
+     * The share of reads of a field which did not run tesseract, or -1 if the field never uses tesseract.
+     */
+    private static double getCacheHitRate(FieldStats fieldStats) {
+        if (fieldStats.readsWithoutOcr == fieldStats.reads) {
+            return -1;
+        }
+        return (double) fieldStats.readsWithoutOcr / fieldStats.reads;
+    }
+
+    private void printReport(int screenshots, int passes) {
+        System.out.println(screenshots + " screenshots, " + passes + " passes, latencies in microseconds");
+        System.out.println(String.format(Locale.US, "%-14s %9s %9s %9s %9s %9s %9s %9s %9s",
+                "field", "accuracy", "cold p50", "cold p95", "cold p99", "warm p50", "warm p95", "warm p99",
+                "cache hit"));
+        for (Field field : Field.values()) {
+            FieldStats fieldStats = stats.get(field);
+            System.out.println(String.format(Locale.US, "%-14s %9s %9.0f %9.0f %9.0f %9.0f %9.0f %9.0f %9s",
+                    field.label,
+                    fieldStats.scored == 0 ? "-" : fieldStats.correct + "/" + fieldStats.scored,
+                    percentileMicros(fieldStats.coldNanos, 50),
+                    percentileMicros(fieldStats.coldNanos, 95),
+                    percentileMicros(fieldStats.coldNanos, 99),
+                    percentileMicros(fieldStats.warmNanos, 50),
+                    percentileMicros(fieldStats.warmNanos, 95),
+                    percentileMicros(fieldStats.warmNanos, 99),
+                    getCacheHitRate(fieldStats) < 0 ? "-"
+                            : String.format(Locale.US, "%.2f", getCacheHitRate(fieldStats))));
+        }
+        for (String[] failure : failures) {
+            System.out.println(failure[0] + ": " + failure[1] + " expected \"" + failure[2] + "\" but read \""
+                    + failure[3] + "\"");
+        }
+    }
+
+    private void writeJson(File file, int screenshots, int passes) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"screenshots\": ").append(screenshots).append(",\n  \"passes\": ").append(passes)
+                .append(",\n  \"fields\": [");
+        String separator = "\n";
+        for (Field field : Field.values()) {
+            FieldStats fieldStats = stats.get(field);
+            json.append(separator).append("    {\"field\": ").append(quote(field.label))
+                    .append(", \"scored\": ").append(fieldStats.scored)
+                    .append(", \"correct\": ").append(fieldStats.correct)
+                    .append(", \"accuracy\": ").append(fieldStats.scored == 0 ? "null"
+                            : String.valueOf((double) fieldStats.correct / fieldStats.scored))
+                    .append(", \"coldMicros\": ").append(percentilesJson(fieldStats.coldNanos))
+                    .append(", \"warmMicros\": ").append(percentilesJson(fieldStats.warmNanos))
+                    .append(", \"cacheHitRate\": ").append(getCacheHitRate(fieldStats) < 0 ? "null"
+                            : String.valueOf(getCacheHitRate(fieldStats)))
+                    .append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ],\n  \"failures\": [");
+        separator = "\n";
+        for (String[] failure : failures) {
+            json.append(separator).append("    {\"screenshot\": ").append(quote(failure[0]))
+                    .append(", \"field\": ").append(quote(failure[1]))
+                    .append(", \"expected\": ").append(quote(failure[2]))
+                    .append(", \"actual\": ").append(quote(failure[3])).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(json.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String percentilesJson(List<Long> nanos) {
+        return String.format(Locale.US, "{\"count\": %d, \"p50\": %.1f, \"p95\": %.1f, \"p99\": %.1f}", nanos.size(),
+                percentileMicros(nanos, 50), percentileMicros(nanos, 95), percentileMicros(nanos, 99));
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.kamron.pogoiv.logic.PokeInfoCalculator;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.InputStream;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Loads the real pokedex from the app resources, and produces the kind of noisy strings the OCR hands to the logic
+ * package.
+ */
+final class Pokedex {
+
+    /**
+     * Pairs of characters tesseract mixes up on the pokemon screen, the second one being what it reads.
+     */
+    private static final String[][] OCR_CONFUSIONS = {
+            {"l", "1"}, {"i", "l"}, {"o", "0"}, {"s", "5"}, {"z", "2"}, {"m", "rn"}, {"e", "c"}};
+
+    private Pokedex() {
+    }
+
+    /**
+     * Initializes the PokeInfoCalculator singleton from integers.xml and pokemons.xml.
+     *
+     * @return the PokeInfoCalculator instance.
+     */
+    static PokeInfoCalculator load() throws Exception {
+        String[] names = getArray("pokemons.xml", "string-array", "pokemon");
+        return PokeInfoCalculator.getInstance(names, names,
+                getIntArray("attack"),
+                getIntArray("defense"),
+                getIntArray("stamina"),
+                getIntArray("devolutionNumber"),
+                getIntArray("evolutionCandyCost"),
+                getIntArray("candyNames"));
+    }
+
+    /**
+     * Applies one or two OCR-like mistakes to the given text, such as "magikarp" -> "rnagikarp" or "clefairy" ->
+     * "c1efairy", or drops a character.
+     *
+     * @param text   the text as it appears on screen
+     * @param random the source of randomness, seeded by the caller so runs are comparable
+     * @return the text as tesseract could have read it.
+     */
+    static String addOcrNoise(String text, Random random) {
+        String noisy = text.toLowerCase();
+        int mistakes = 1 + random.nextInt(2);
+        for (int i = 0; i < mistakes; i++) {
+            String[] confusion = OCR_CONFUSIONS[random.nextInt(OCR_CONFUSIONS.length)];
+            int index = noisy.indexOf(confusion[0]);
+            if (index >= 0) {
+                noisy = noisy.substring(0, index) + confusion[1] + noisy.substring(index + confusion[0].length());
+            } else if (noisy.length() > 3) {
+                int dropped = random.nextInt(noisy.length());
+                noisy = noisy.substring(0, dropped) + noisy.substring(dropped + 1);
+            }
+        }
+        return noisy;
+    }
+
+    private static int[] getIntArray(String name) throws Exception {
+        String[] items = getArray("integers.xml", "integer-array", name);
+        int[] values = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            values[i] = Integer.parseInt(items[i]);
+        }
+        return values;
+    }
+
+    private static String[] getArray(String resource, String tag, String name) throws Exception {
+        InputStream in = Pokedex.class.getClassLoader().getResourceAsStream(resource);
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+            NodeList arrays = document.getElementsByTagName(tag);
+            for (int i = 0; i < arrays.getLength(); i++) {
+                Element array = (Element) arrays.item(i);
+                if (name.equals(array.getAttribute("name"))) {
+                    NodeList items = array.getElementsByTagName("item");
+                    String[] values = new String[items.getLength()];
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = items.item(j).getTextContent().trim().replace("\\'", "'");
+                    }
+                    return values;
+                }
+            }
+        } finally {
+            in.close();
+        }
+        throw new IllegalArgumentException("No " + tag + " named " + name + " in " + resource);
+    }
+}
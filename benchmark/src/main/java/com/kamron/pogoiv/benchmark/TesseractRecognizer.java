@@ -0,0 +1,160 @@
+package com.kamron.pogoiv.benchmark;
+
+import com.kamron.pogoiv.ocr.ImageSource;
+import com.kamron.pogoiv.ocr.ImageUtil;
+import com.kamron.pogoiv.ocr.RecognizedText;
+import com.kamron.pogoiv.ocr.RecognizerProfile;
+import com.kamron.pogoiv.ocr.TextRecognizer;
+import com.sun.jna.Pointer;
+
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI1;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TextRecognizer running tesseract on the JVM through tess4j, with an engine per RecognizerProfile configured like the
+ * engines of the app. The engines are kept alive between calls, so their initialization does not count in the
+ * recognition time.
+ */
+class TesseractRecognizer implements TextRecognizer {
+    private final String dataPath;
+    private final EnumMap<RecognizerProfile, ITessAPI.TessBaseAPI> handles = new EnumMap<>(RecognizerProfile.class);
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(0);
+    private int calls;
+
+    /**
+     * Start the tesseract engines.
+     *
+     * @param dataPath the folder containing tessdata/eng.traineddata
+     */
+    TesseractRecognizer(String dataPath) {
+        this.dataPath = dataPath;
+        for (RecognizerProfile profile : RecognizerProfile.values()) {
+            handles.put(profile, createHandle(profile));
+        }
+    }
+
+    private ITessAPI.TessBaseAPI createHandle(RecognizerProfile profile) {
+        ITessAPI.TessBaseAPI handle = TessAPI1.TessBaseAPICreate();
+        if (TessAPI1.TessBaseAPIInit3(handle, dataPath, "eng") != 0) {
+            TessAPI1.TessBaseAPIDelete(handle);
+            end();
+            throw new IllegalArgumentException("Could not load " + dataPath + "/tessdata/eng.traineddata");
+        }
+        TessAPI1.TessBaseAPISetPageSegMode(handle, profile.singleBlock
+                ? ITessAPI.TessPageSegMode.PSM_SINGLE_BLOCK
+                : ITessAPI.TessPageSegMode.PSM_SINGLE_LINE);
+        TessAPI1.TessBaseAPISetVariable(handle, "tessedit_char_whitelist", profile.whitelist);
+        for (Map.Entry<String, String> variable : profile.variables.entrySet()) {
+            TessAPI1.TessBaseAPISetVariable(handle, variable.getKey(), variable.getValue());
+        }
+        return handle;
+    }
+
+    @Override
+    public String recognize(ImageSource image, RecognizerProfile profile) {
+        ITessAPI.TessBaseAPI handle = handles.get(profile);
+        setImage(handle, image);
+        return getText(handle);
+    }
+
+    @Override
+    public RecognizedText recognizeChoices(ImageSource image, RecognizerProfile profile) {
+        ITessAPI.TessBaseAPI handle = handles.get(profile);
+        setImage(handle, image);
+        String text = getText(handle);
+        List<RecognizedText.Symbol> symbols = new ArrayList<>();
+        ITessAPI.TessResultIterator iterator = text.trim().isEmpty() ? null : TessAPI1.TessBaseAPIGetIterator(handle);
+        if (iterator != null) {
+            try {
+                ITessAPI.TessPageIterator pageIterator = TessAPI1.TessResultIteratorGetPageIterator(iterator);
+                do {
+                    RecognizedText.Symbol symbol = getSymbol(iterator);
+                    if (symbol != null) {
+                        symbols.add(symbol);
+                    }
+                } while (TessAPI1.TessPageIteratorNext(pageIterator, ITessAPI.TessPageIteratorLevel.RIL_SYMBOL)
+                        == ITessAPI.TRUE);
+            } finally {
+                TessAPI1.TessResultIteratorDelete(iterator);
+            }
+        }
+        return new RecognizedText(text, symbols);
+    }
+
+    private void setImage(ITessAPI.TessBaseAPI handle, ImageSource image) {
+        calls++;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (buffer.capacity() < width * height) {
+            buffer = ByteBuffer.allocateDirect(width * height);
+        }
+        buffer.clear();
+        buffer.put(ImageUtil.toGrey(image));
+        buffer.flip();
+        // 8 bit grey, like OcrHelper.getText hands images to tesseract on the phone
+        TessAPI1.TessBaseAPISetImage(handle, buffer, width, height, 1, width);
+    }
+
+    private static String getText(ITessAPI.TessBaseAPI handle) {
+        Pointer text = TessAPI1.TessBaseAPIGetUTF8Text(handle);
+        try {
+            return text == null ? "" : text.getString(0, "UTF-8");
+        } finally {
+            if (text != null) {
+                TessAPI1.TessDeleteText(text);
+            }
+        }
+    }
+
+    /**
+     * Get the characters tesseract considered for the symbol at the iterator, or null if there are none.
+     */
+    private static RecognizedText.Symbol getSymbol(ITessAPI.TessResultIterator iterator) {
+        ITessAPI.TessChoiceIterator choices = TessAPI1.TessResultIteratorGetChoiceIterator(iterator);
+        if (choices == null) {
+            return null;
+        }
+        List<String> characters = new ArrayList<>();
+        List<Double> confidences = new ArrayList<>();
+        try {
+            do {
+                String character = TessAPI1.TessChoiceIteratorGetUTF8Text(choices);
+                if (character != null) {
+                    characters.add(character);
+                    confidences.add((double) TessAPI1.TessChoiceIteratorConfidence(choices));
+                }
+            } while (TessAPI1.TessChoiceIteratorNext(choices) == ITessAPI.TRUE);
+        } finally {
+            TessAPI1.TessChoiceIteratorDelete(choices);
+        }
+        if (characters.isEmpty()) {
+            return null;
+        }
+        double[] confidenceArray = new double[confidences.size()];
+        for (int i = 0; i < confidenceArray.length; i++) {
+            confidenceArray[i] = confidences.get(i);
+        }
+        return new RecognizedText.Symbol(characters.toArray(new String[characters.size()]), confidenceArray);
+    }
+
+    /**
+     * The number of images recognized since the engines were started.
+     */
+    int getCalls() {
+        return calls;
+    }
+
+    void end() {
+        for (ITessAPI.TessBaseAPI handle : handles.values()) {
+            TessAPI1.TessBaseAPIEnd(handle);
+            TessAPI1.TessBaseAPIDelete(handle);
+        }
+        handles.clear();
+    }
+}